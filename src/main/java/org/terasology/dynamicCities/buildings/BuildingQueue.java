@@ -17,6 +17,7 @@ package org.terasology.dynamicCities.buildings;
 
 
 import org.terasology.dynamicCities.parcels.DynParcel;
+import org.terasology.dynamicCities.parcels.ParcelGrid;
 import org.terasology.entitySystem.Component;
 import org.terasology.math.geom.Rect2i;
 
@@ -28,6 +29,8 @@ import java.util.Set;
 public class BuildingQueue implements Component {
     public Set<DynParcel> buildingQueue;
 
+    //Spatial lookup over queued parcels, not persisted and rebuilt lazily after loading
+    private transient ParcelGrid parcelGrid;
 
     public BuildingQueue() {
         buildingQueue = new HashSet<>();
@@ -41,12 +44,28 @@ public class BuildingQueue implements Component {
         return isNotIntersecting(parcel.shape);
     }
 
-    public boolean isNotIntersecting(Rect2i rect) {
-        for (DynParcel spawnedParcels : buildingQueue) {
-            if (spawnedParcels.getShape().overlaps(rect)) {
-                return false;
+    public void add(DynParcel parcel) {
+        if (buildingQueue.add(parcel)) {
+            getParcelGrid().add(parcel);
+        }
+    }
+
+    public void removeAll(Collection<DynParcel> parcels) {
+        for (DynParcel parcel : parcels) {
+            if (buildingQueue.remove(parcel)) {
+                getParcelGrid().remove(parcel);
             }
         }
-        return true;
+    }
+
+    public boolean isNotIntersecting(Rect2i rect) {
+        return !getParcelGrid().overlaps(rect);
+    }
+
+    private ParcelGrid getParcelGrid() {
+        if (parcelGrid == null || parcelGrid.size() != buildingQueue.size()) {
+            parcelGrid = new ParcelGrid(buildingQueue);
+        }
+        return parcelGrid;
     }
 }
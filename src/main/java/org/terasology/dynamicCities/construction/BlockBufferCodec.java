@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.construction;
+
+import gnu.trove.map.TIntShortMap;
+import gnu.trove.map.hash.TIntShortHashMap;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary form of one chunk of the block buffer: the number of blocks, then for every block in ascending index order
+ * the delta to the previous index and its palette index, all as varints. The result is deflate-compressed.
+ * Palette indices are used instead of block ids, as ids are not stable between sessions.
+ */
+public final class BlockBufferCodec {
+
+    private BlockBufferCodec() { }
+
+    /**
+     * @param chunk block ids keyed by their index inside the chunk
+     * @param toPalette maps a block id to its palette index
+     */
+    public static byte[] encode(TIntShortMap chunk, BlockIdMapper toPalette) {
+        int[] indices = chunk.keys();
+        Arrays.sort(indices);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(indices.length * 3 + 5);
+        writeVarInt(out, indices.length);
+        int previous = 0;
+        for (int index : indices) {
+            writeVarInt(out, index - previous);
+            writeVarInt(out, toPalette.map(chunk.get(index)));
+            previous = index;
+        }
+        return compress(out.toByteArray());
+    }
+
+    /**
+     * @param fromPalette maps a palette index to a block id
+     * @throws IllegalArgumentException if the data is not a valid encoded chunk
+     */
+    public static TIntShortMap decode(byte[] data, BlockIdMapper fromPalette) {
+        byte[] raw = decompress(data);
+        int[] cursor = new int[1];
+        int count = readVarInt(raw, cursor);
+        TIntShortMap chunk = new TIntShortHashMap(Math.max(count, 1));
+        int index = 0;
+        for (int i = 0; i < count; i++) {
+            index += readVarInt(raw, cursor);
+            chunk.put(index, (short) fromPalette.map(readVarInt(raw, cursor)));
+        }
+        return chunk;
+    }
+
+    @FunctionalInterface
+    public interface BlockIdMapper {
+        int map(int value);
+    }
+
+    private static byte[] compress(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+        byte[] buffer = new byte[1024];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] data) {
+        Inflater inflater = new Inflater();
+        inflater.setInput(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+        byte[] buffer = new byte[1024];
+        try {
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated block buffer data");
+                }
+                out.write(buffer, 0, length);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt block buffer data", e);
+        } finally {
+            inflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] data, int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (cursor[0] >= data.length || shift > 28) {
+                throw new IllegalArgumentException("Malformed block buffer data");
+            }
+            b = data[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
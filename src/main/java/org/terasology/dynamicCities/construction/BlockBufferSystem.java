@@ -15,16 +15,25 @@
  */
 package org.terasology.dynamicCities.construction;
 
+import gnu.trove.iterator.TIntShortIterator;
+import gnu.trove.map.TIntShortMap;
+import gnu.trove.map.TShortIntMap;
+import gnu.trove.map.hash.TIntShortHashMap;
+import gnu.trove.map.hash.TShortIntHashMap;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.dynamicCities.construction.components.BlockBufferComponent;
-import org.terasology.dynamicCities.settlements.SettlementConstants;
 import org.terasology.dynamicCities.settlements.events.SettlementGrowthEvent;
+import org.terasology.dynamicCities.utilities.CoordinateKeys;
+import org.terasology.engine.Time;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
@@ -32,21 +41,23 @@ import org.terasology.entitySystem.event.ReceiveEvent;
 import org.terasology.entitySystem.systems.BaseComponentSystem;
 import org.terasology.entitySystem.systems.RegisterMode;
 import org.terasology.entitySystem.systems.RegisterSystem;
-import org.terasology.logic.delay.DelayManager;
-import org.terasology.logic.delay.PeriodicActionTriggeredEvent;
+import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.math.ChunkMath;
 import org.terasology.math.Region3i;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.registry.In;
 import org.terasology.registry.Share;
 import org.terasology.world.WorldProvider;
 import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.chunks.ChunkConstants;
 
 @Share(BlockBufferSystem.class)
 @RegisterSystem(RegisterMode.AUTHORITY)
-public class BlockBufferSystem extends BaseComponentSystem {
+public class BlockBufferSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
 
-    public static final String PLACE_BLOCKS_ACTION_ID = "BlockBufferSystem:placeBlocksAction";
-    public static final int BLOCKS_PER_UPDATE = 10_000;
+    //Default time in milliseconds that may be spent placing buffered blocks per tick
+    public static final int DEFAULT_TIME_BUDGET = 4;
 
     private static final Logger logger = LoggerFactory.getLogger(BlockBufferSystem.class);
 
@@ -57,12 +68,25 @@ public class BlockBufferSystem extends BaseComponentSystem {
     private WorldProvider worldProvider;
 
     @In
-    private DelayManager delayManager;
+    private BlockManager blockManager;
+
+    @In
+    private Time time;
 
     private EntityRef blockBufferEntity;
     private BlockBufferComponent blockBufferComponent;
 
-    private Map<Vector3i, Block> buffer = new LinkedHashMap<>(SettlementConstants.BLOCKBUFFER_SIZE);
+    //Pending block ids grouped by chunk position and keyed by their index inside the chunk.
+    //Chunks are drained in the order they were first touched.
+    private Map<Vector3i, TIntShortMap> buffer = new LinkedHashMap<>();
+    private int bufferSize;
+    //Chunks whose persisted form is out of date
+    private Set<Vector3i> dirtyChunks = new HashSet<>();
+    //Block id to its index in the component's palette
+    private TShortIntMap paletteIndices = new TShortIntHashMap();
+    //Completion listeners, registered with every chunk in which their region still has pending blocks
+    private Map<Vector3i, List<RegionListener>> regionListeners = new HashMap<>();
+    private int timeBudget = DEFAULT_TIME_BUDGET;
 
     @Override
     public void postBegin() {
@@ -74,71 +98,272 @@ public class BlockBufferSystem extends BaseComponentSystem {
             blockBufferEntity.setAlwaysRelevant(true);
         }
         blockBufferComponent = blockBufferEntity.getComponent(BlockBufferComponent.class);
-        if (blockBufferComponent.blockBuffer != null) {
-            blockBufferComponent.blockBuffer.forEach(b -> buffer.put(b.pos, b.blockType));
+        if (blockBufferComponent.palette == null || blockBufferComponent.chunks == null) {
+            blockBufferComponent.palette = new ArrayList<>();
+            blockBufferComponent.chunks = new HashMap<>();
+        }
+        loadChunks();
+        if (blockBufferComponent.blockBuffer != null && !blockBufferComponent.blockBuffer.isEmpty()) {
+            blockBufferComponent.blockBuffer.forEach(b -> saveBlock(b.pos, b.blockType));
+            blockBufferComponent.blockBuffer.clear();
+        }
+    }
+
+    private void loadChunks() {
+        short[] paletteIds = new short[blockBufferComponent.palette.size()];
+        for (int i = 0; i < paletteIds.length; i++) {
+            paletteIds[i] = blockManager.getBlock(blockBufferComponent.palette.get(i)).getId();
+            paletteIndices.put(paletteIds[i], i);
+        }
+        Iterator<Map.Entry<String, byte[]>> iter = blockBufferComponent.chunks.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<String, byte[]> entry = iter.next();
+            try {
+                TIntShortMap chunk = BlockBufferCodec.decode(entry.getValue(), paletteIndex -> paletteIds[paletteIndex]);
+                buffer.put(CoordinateKeys.parseVector3i(entry.getKey()), chunk);
+                bufferSize += chunk.size();
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                logger.error("Dropping unreadable block buffer chunk {}", entry.getKey(), e);
+                iter.remove();
+            }
         }
+    }
 
-        // This results in a null delayManager if the system is not marked as Authority (non-host client timing issue?)
-        delayManager.addPeriodicAction(blockBufferEntity, PLACE_BLOCKS_ACTION_ID, 1000, 1000);
+    @Override
+    public void update(float delta) {
+        setBlocks();
     }
 
     public void saveBlock(Vector3i pos, Block block) {
-        buffer.put(pos, block);
+        Vector3i chunkPos = ChunkMath.calcChunkPos(pos);
+        TIntShortMap chunk = buffer.get(chunkPos);
+        if (chunk == null) {
+            chunk = new TIntShortHashMap();
+            buffer.put(chunkPos, chunk);
+        }
+        int index = toChunkIndex(pos.x, pos.y, pos.z);
+        if (!chunk.containsKey(index)) {
+            bufferSize++;
+        }
+        chunk.put(index, block.getId());
+        dirtyChunks.add(chunkPos);
     }
 
     public void setBlock() {
-        if (!buffer.isEmpty()) {
-            Iterator<Map.Entry<Vector3i, Block>> iterator = buffer.entrySet().iterator();
-            Map.Entry<Vector3i, Block> blockToPlace = iterator.next();
-            if (worldProvider.isBlockRelevant(blockToPlace.getKey())) {
-                worldProvider.setBlock(blockToPlace.getKey(), blockToPlace.getValue());
-                iterator.remove();
+        Iterator<Map.Entry<Vector3i, TIntShortMap>> iter = buffer.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<Vector3i, TIntShortMap> chunk = iter.next();
+            TIntShortIterator blockIterator = chunk.getValue().iterator();
+            blockIterator.advance();
+            Vector3i pos = toWorldPos(chunk.getKey(), blockIterator.key());
+            if (worldProvider.isBlockRelevant(pos)) {
+                worldProvider.setBlock(pos, blockManager.getBlock(blockIterator.value()));
+                blockIterator.remove();
+                bufferSize--;
+                dirtyChunks.add(chunk.getKey());
+                if (chunk.getValue().isEmpty()) {
+                    iter.remove();
+                }
+                notifyRegionListeners(chunk.getKey());
+                return;
             }
         }
     }
 
-    public void setBlocks(int maxBlocksToSet) {
-        Map<Vector3i, Block> blocksToPlace = new HashMap<>();
-        int removed = 0;
-        int oldBufferSize = getBlockBufferSize();
-
-        Iterator<Map.Entry<Vector3i, Block>> iter = buffer.entrySet().iterator();
-        while (iter.hasNext() && blocksToPlace.size() < maxBlocksToSet) {
-            Map.Entry<Vector3i, Block> block = iter.next();
-            if (worldProvider.isBlockRelevant(block.getKey())) {
-                blocksToPlace.put(block.getKey(), block.getValue());
+    /**
+     * Places the buffered blocks of loaded chunks, one whole chunk per batch, until the time budget is used up.
+     * Chunks that are not loaded are skipped without looking at their blocks.
+     */
+    public void setBlocks() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        long startTime = time.getRealTimeInMs();
+        int oldBufferSize = bufferSize;
+        List<Vector3i> placedChunks = new ArrayList<>();
+        Iterator<Map.Entry<Vector3i, TIntShortMap>> iter = buffer.entrySet().iterator();
+        while (iter.hasNext() && time.getRealTimeInMs() - startTime < timeBudget) {
+            Map.Entry<Vector3i, TIntShortMap> chunk = iter.next();
+            Vector3i chunkPos = chunk.getKey();
+            if (worldProvider.isBlockRelevant(toWorldPos(chunkPos, 0))) {
+                worldProvider.setBlocks(unpackChunk(chunkPos, chunk.getValue()));
+                bufferSize -= chunk.getValue().size();
+                dirtyChunks.add(chunkPos);
+                placedChunks.add(chunkPos);
                 iter.remove();
-                removed++;
             }
         }
+        //Listeners may buffer new blocks, so they are only notified once the iteration is done
+        placedChunks.forEach(this::notifyRegionListeners);
 
-        if (!blocksToPlace.isEmpty()) {
-            logger.info("Buffer before: {}, Placed: {}, Removed: {}, Buffer after: {}", oldBufferSize, blocksToPlace.size(), removed, getBlockBufferSize());
-            //worldProvider.setBlocks(blocksToPlace);
-            blocksToPlace.forEach((pos, block) -> worldProvider.setBlock(pos, block));
+        if (bufferSize != oldBufferSize) {
+            logger.debug("Buffer before: {}, Placed: {}, Buffer after: {}", oldBufferSize, oldBufferSize - bufferSize, bufferSize);
         }
     }
 
+    /**
+     * Only the chunks touched by the region are looked at. Chunks fully inside the region are answered by their
+     * pending block count, only partially covered chunks are scanned.
+     * @return true if no block inside the region is waiting to be placed
+     */
     public boolean isRegionProcessed(Region3i region3i) {
-        if (!blockBufferComponent.blockBuffer.isEmpty()) {
-            for (Vector3i pos : buffer.keySet()) {
-                if (region3i.encompasses(pos)) {
-                    return false;
+        if (region3i.isEmpty() || buffer.isEmpty()) {
+            return true;
+        }
+        Vector3i minChunk = ChunkMath.calcChunkPos(region3i.min());
+        Vector3i maxChunk = ChunkMath.calcChunkPos(region3i.max());
+        Vector3i chunkPos = new Vector3i();
+        for (int x = minChunk.x; x <= maxChunk.x; x++) {
+            for (int y = minChunk.y; y <= maxChunk.y; y++) {
+                for (int z = minChunk.z; z <= maxChunk.z; z++) {
+                    chunkPos.set(x, y, z);
+                    if (hasPendingBlocks(chunkPos, region3i)) {
+                        return false;
+                    }
                 }
             }
         }
         return true;
     }
 
+    /**
+     * Runs the callback on the game thread once the chunks that hold pending blocks inside the region at the time of
+     * the call have no pending blocks inside the region left. Blocks buffered into those chunks later delay the
+     * callback as well, blocks buffered into other chunks of the region do not. If nothing in the region is pending,
+     * it runs immediately. The callback runs exactly once.
+     */
+    public void whenRegionProcessed(Region3i region3i, Runnable callback) {
+        if (region3i.isEmpty() || buffer.isEmpty()) {
+            callback.run();
+            return;
+        }
+        RegionListener listener = new RegionListener(region3i, callback);
+        Vector3i minChunk = ChunkMath.calcChunkPos(region3i.min());
+        Vector3i maxChunk = ChunkMath.calcChunkPos(region3i.max());
+        for (int x = minChunk.x; x <= maxChunk.x; x++) {
+            for (int y = minChunk.y; y <= maxChunk.y; y++) {
+                for (int z = minChunk.z; z <= maxChunk.z; z++) {
+                    Vector3i chunkPos = new Vector3i(x, y, z);
+                    if (hasPendingBlocks(chunkPos, region3i)) {
+                        listener.pendingChunks++;
+                        regionListeners.computeIfAbsent(chunkPos, k -> new ArrayList<>()).add(listener);
+                    }
+                }
+            }
+        }
+        if (listener.pendingChunks == 0) {
+            callback.run();
+        }
+    }
+
+    /**
+     * Counts down every listener that no longer waits on the chunk and fires those with no pending chunks left.
+     */
+    private void notifyRegionListeners(Vector3i chunkPos) {
+        List<RegionListener> listeners = regionListeners.get(chunkPos);
+        if (listeners == null) {
+            return;
+        }
+        List<RegionListener> finished = new ArrayList<>();
+        Iterator<RegionListener> iter = listeners.iterator();
+        while (iter.hasNext()) {
+            RegionListener listener = iter.next();
+            if (!hasPendingBlocks(chunkPos, listener.region)) {
+                iter.remove();
+                if (--listener.pendingChunks == 0) {
+                    finished.add(listener);
+                }
+            }
+        }
+        if (listeners.isEmpty()) {
+            regionListeners.remove(chunkPos);
+        }
+        finished.forEach(listener -> listener.callback.run());
+    }
+
+    private boolean hasPendingBlocks(Vector3i chunkPos, Region3i region3i) {
+        TIntShortMap chunk = buffer.get(chunkPos);
+        if (chunk == null || chunk.isEmpty()) {
+            return false;
+        }
+        int minX = chunkPos.x * ChunkConstants.SIZE_X;
+        int minY = chunkPos.y * ChunkConstants.SIZE_Y;
+        int minZ = chunkPos.z * ChunkConstants.SIZE_Z;
+        if (region3i.encompasses(minX, minY, minZ)
+                && region3i.encompasses(minX + ChunkConstants.SIZE_X - 1, minY + ChunkConstants.SIZE_Y - 1, minZ + ChunkConstants.SIZE_Z - 1)) {
+            return true;
+        }
+        return !chunk.forEachKey(index -> !region3i.encompasses(minX + index % ChunkConstants.SIZE_X,
+                minY + index / (ChunkConstants.SIZE_X * ChunkConstants.SIZE_Z),
+                minZ + (index / ChunkConstants.SIZE_X) % ChunkConstants.SIZE_Z));
+    }
+
     public int getBlockBufferSize() {
-        return buffer.size();
+        return bufferSize;
+    }
+
+    public int getTimeBudget() {
+        return timeBudget;
+    }
+
+    /**
+     * @param timeBudget time in milliseconds that may be spent placing buffered blocks per tick
+     */
+    public void setTimeBudget(int timeBudget) {
+        this.timeBudget = timeBudget;
     }
 
+    /**
+     * Re-encodes only the chunks that changed since the last save.
+     */
     private void saveBufferToComponent() {
-        BlockBufferComponent component = blockBufferEntity.getComponent(BlockBufferComponent.class);
-        component.blockBuffer.clear();
-        component.blockBuffer.addAll(buffer.entrySet().stream().map(entry -> new BufferedBlock(entry.getKey(), entry.getValue())).collect(Collectors.toList()));
-        blockBufferEntity.saveComponent(component);
+        if (dirtyChunks.isEmpty()) {
+            return;
+        }
+        for (Vector3i chunkPos : dirtyChunks) {
+            TIntShortMap chunk = buffer.get(chunkPos);
+            if (chunk == null) {
+                blockBufferComponent.chunks.remove(CoordinateKeys.toKey(chunkPos.x, chunkPos.y, chunkPos.z));
+            } else {
+                blockBufferComponent.chunks.put(CoordinateKeys.toKey(chunkPos.x, chunkPos.y, chunkPos.z), BlockBufferCodec.encode(chunk, this::toPaletteIndex));
+            }
+        }
+        dirtyChunks.clear();
+        blockBufferEntity.saveComponent(blockBufferComponent);
+    }
+
+    private int toPaletteIndex(int blockId) {
+        short id = (short) blockId;
+        if (!paletteIndices.containsKey(id)) {
+            paletteIndices.put(id, blockBufferComponent.palette.size());
+            blockBufferComponent.palette.add(blockManager.getBlock(id).getURI().toString());
+        }
+        return paletteIndices.get(id);
+    }
+
+    private Map<Vector3i, Block> unpackChunk(Vector3i chunkPos, TIntShortMap chunk) {
+        Map<Vector3i, Block> blocks = new HashMap<>(chunk.size() * 2);
+        TIntShortIterator iterator = chunk.iterator();
+        while (iterator.hasNext()) {
+            iterator.advance();
+            blocks.put(toWorldPos(chunkPos, iterator.key()), blockManager.getBlock(iterator.value()));
+        }
+        return blocks;
+    }
+
+    private static int toChunkIndex(int x, int y, int z) {
+        int localX = x & (ChunkConstants.SIZE_X - 1);
+        int localY = y & (ChunkConstants.SIZE_Y - 1);
+        int localZ = z & (ChunkConstants.SIZE_Z - 1);
+        return localX + ChunkConstants.SIZE_X * (localZ + ChunkConstants.SIZE_Z * localY);
+    }
+
+    private static Vector3i toWorldPos(Vector3i chunkPos, int index) {
+        int localX = index % ChunkConstants.SIZE_X;
+        int localZ = (index / ChunkConstants.SIZE_X) % ChunkConstants.SIZE_Z;
+        int localY = index / (ChunkConstants.SIZE_X * ChunkConstants.SIZE_Z);
+        return new Vector3i(chunkPos.x * ChunkConstants.SIZE_X + localX, chunkPos.y * ChunkConstants.SIZE_Y + localY,
+                chunkPos.z * ChunkConstants.SIZE_Z + localZ);
     }
 
     @ReceiveEvent
@@ -151,15 +376,19 @@ public class BlockBufferSystem extends BaseComponentSystem {
         blockBufferEntity.saveComponent(blockBufferComponent);
     }
 
-    @ReceiveEvent
-    public void onPeriodicPlaceBlocks(PeriodicActionTriggeredEvent event, EntityRef entity) {
-        if (event.getActionId().equals(PLACE_BLOCKS_ACTION_ID)) {
-            setBlocks(BLOCKS_PER_UPDATE);
-        }
-    }
-
     @Override
     public void preSave() {
         saveBufferToComponent();
     }
+
+    private static final class RegionListener {
+        private final Region3i region;
+        private final Runnable callback;
+        private int pendingChunks;
+
+        private RegionListener(Region3i region, Runnable callback) {
+            this.region = region;
+            this.callback = callback;
+        }
+    }
 }
@@ -16,133 +16,65 @@
 
 package org.terasology.dynamicCities.construction;
 
+import gnu.trove.set.TIntSet;
 import org.terasology.dynamicCities.region.components.TreeGeneratorContainer;
+import org.terasology.dynamicCities.world.trees.LSystemTurtle;
 import org.terasology.math.LSystemRule;
-import org.terasology.math.TeraMath;
-import org.terasology.math.geom.Matrix4f;
-import org.terasology.math.geom.Quat4f;
-import org.terasology.math.geom.Vector3f;
-import org.terasology.math.geom.Vector3i;
-import org.terasology.utilities.collection.CharSequenceIterator;
 import org.terasology.utilities.random.Random;
-import org.terasology.world.block.Block;
 
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Encapsulates the recursive algorithm for the generator of trees
+ * Traces the blocks of a tree generated by {@link org.terasology.dynamicCities.world.trees.RecursiveTreeGeneratorLSystem},
+ * so they can be removed again. Positions are collected relative to the tree base, without duplicates.
  */
 
 public class RecursiveTreeGeneratorLSystemRemover {
 
+    //Offsets are packed with 10 bits per axis
+    private static final int OFFSET_BIAS = 512;
+    private static final int OFFSET_MASK = 0x3FF;
+
     public int maxDepth;
     public float angle;
     public Map<Character, LSystemRule> ruleSet;
-    private BlockBufferSystem blockBufferSystem;
+    private LSystemTurtle turtle;
 
-    public RecursiveTreeGeneratorLSystemRemover(int maxDepth, float angle, Map<Character, LSystemRule> ruleSet, BlockBufferSystem blockBufferSystem) {
+    public RecursiveTreeGeneratorLSystemRemover(int maxDepth, float angle, Map<Character, LSystemRule> ruleSet) {
         this.angle = angle;
         this.maxDepth = maxDepth;
         this.ruleSet = ruleSet;
-        this.blockBufferSystem = blockBufferSystem;
     }
 
-    public void recurse(Random rand, int posX, int posY, int posZ, float angleOffset,
-                        CharSequenceIterator axiomIterator, Vector3f position, Matrix4f rotation,
-                        Block air, int depth) {
-        Matrix4f tempRotation = new Matrix4f();
-        while (axiomIterator.hasNext()) {
-            char c = axiomIterator.nextChar();
-            switch (c) {
-                case 'G':
-                case 'F':
-                    // Tree trunk
-                    Vector3i pos1 = new Vector3i(posX + (int) position.x + 1, posY + (int) position.y, posZ + (int) position.z);
-                    Vector3i pos2 = new Vector3i(posX + (int) position.x - 1, posY + (int) position.y, posZ + (int) position.z);
-                    Vector3i pos3 = new Vector3i(posX + (int) position.x, posY + (int) position.y, posZ + (int) position.z + 1);
-                    Vector3i pos4 = new Vector3i(posX + (int) position.x, posY + (int) position.y, posZ + (int) position.z - 1);
-                    blockBufferSystem.saveBlock(pos1, air);
-                    blockBufferSystem.saveBlock(pos2, air);
-                    blockBufferSystem.saveBlock(pos3, air);
-                    blockBufferSystem.saveBlock(pos4, air);
-
-                    // Generate leaves
-                    if (depth > 1) {
-                        int size = 1;
-
-                        for (int x = -size; x <= size; x++) {
-                            for (int y = -size; y <= size; y++) {
-                                for (int z = -size; z <= size; z++) {
-                                    if (Math.abs(x) == size && Math.abs(y) == size && Math.abs(z) == size) {
-                                        continue;
-                                    }
-                                    pos1 = new Vector3i(posX + (int) position.x + x + 1, posY + (int) position.y + y, posZ + z + (int) position.z);
-                                    pos2 = new Vector3i(posX + (int) position.x + x - 1, posY + (int) position.y + y, posZ + z + (int) position.z);
-                                    pos3 = new Vector3i(posX + (int) position.x + x, posY + (int) position.y + y, posZ + z + (int) position.z + 1);
-                                    pos4 = new Vector3i(posX + (int) position.x + x, posY + (int) position.y + y, posZ + z + (int) position.z - 1);
-                                    blockBufferSystem.saveBlock(pos1, air);
-                                    blockBufferSystem.saveBlock(pos2, air);
-                                    blockBufferSystem.saveBlock(pos3, air);
-                                    blockBufferSystem.saveBlock(pos4, air);
-                                }
+    public void trace(Random rand, float angleOffset, String axiom, TIntSet footprint) {
+        if (turtle == null) {
+            turtle = new LSystemTurtle(maxDepth, angle, ruleSet);
+        }
+        turtle.walk(rand, angleOffset, axiom, (x, y, z, leaves) -> {
+            // Tree trunk
+            footprint.add(packOffset(x + 1, y, z));
+            footprint.add(packOffset(x - 1, y, z));
+            footprint.add(packOffset(x, y, z + 1));
+            footprint.add(packOffset(x, y, z - 1));
+
+            // Generate leaves
+            if (leaves) {
+                int size = 1;
+
+                //Union of the four leaf cubes around the trunk, each without its corners
+                for (int dx = -size - 1; dx <= size + 1; dx++) {
+                    for (int dy = -size; dy <= size; dy++) {
+                        for (int dz = -size - 1; dz <= size + 1; dz++) {
+                            if (isLeaf(dx - 1, dy, dz, size) || isLeaf(dx + 1, dy, dz, size)
+                                    || isLeaf(dx, dy, dz - 1, size) || isLeaf(dx, dy, dz + 1, size)) {
+                                footprint.add(packOffset(x + dx, y + dy, z + dz));
                             }
                         }
                     }
-
-                    Vector3f dir = new Vector3f(1f, 0f, 0f);
-                    rotation.transformVector(dir);
-
-                    position.add(dir);
-                    break;
-                case '[':
-                    recurse(rand, posX, posY, posZ, angleOffset, axiomIterator, new Vector3f(position), new Matrix4f(rotation), air, depth);
-                    break;
-                case ']':
-                    return;
-                case '+':
-                    tempRotation = new Matrix4f(new Quat4f(new Vector3f(0f, 0f, 1f), angle + angleOffset), Vector3f.ZERO, 1.0f);
-                    rotation.mul(tempRotation);
-                    break;
-                case '-':
-                    tempRotation = new Matrix4f(new Quat4f(new Vector3f(0f, 0f, -1f), angle + angleOffset), Vector3f.ZERO, 1.0f);
-                    rotation.mul(tempRotation);
-                    break;
-                case '&':
-                    tempRotation = new Matrix4f(new Quat4f(new Vector3f(0f, 1f, 0f), angle + angleOffset), Vector3f.ZERO, 1.0f);
-                    rotation.mul(tempRotation);
-                    break;
-                case '^':
-                    tempRotation = new Matrix4f(new Quat4f(new Vector3f(0f, -1f, 0f), angle + angleOffset), Vector3f.ZERO, 1.0f);
-                    rotation.mul(tempRotation);
-                    break;
-                case '*':
-                    tempRotation = new Matrix4f(new Quat4f(new Vector3f(1f, 0f, 0f), angle), Vector3f.ZERO, 1.0f);
-                    rotation.mul(tempRotation);
-                    break;
-                case '/':
-                    tempRotation = new Matrix4f(new Quat4f(new Vector3f(-1f, 0f, 0f), angle), Vector3f.ZERO, 1.0f);
-                    rotation.mul(tempRotation);
-                    break;
-                default:
-                    // If we have already reached the maximum depth, don't ever bother to lookup in the map
-                    if (depth == maxDepth - 1) {
-                        break;
-                    }
-                    LSystemRule rule = ruleSet.get(c);
-                    if (rule == null) {
-                        break;
-                    }
-
-                    float weightedFailureProbability = TeraMath.pow(1f - rule.getProbability(), maxDepth - depth);
-                    if (rand.nextFloat() < weightedFailureProbability) {
-                        break;
-                    }
-
-                    recurse(rand, posX, posY, posZ, angleOffset, new CharSequenceIterator(rule.getAxiom()),
-                        position, rotation, air, depth + 1);
+                }
             }
-        }
+        });
     }
 
     public void applySettings(TreeGeneratorContainer treeGeneratorContainer) {
@@ -152,6 +84,33 @@ public class RecursiveTreeGeneratorLSystemRemover {
         for (Map.Entry<String, LSystemRuleContainer> entry : treeGeneratorContainer.ruleSet.entrySet()) {
             ruleSet.put(entry.getKey().charAt(0), new LSystemRule(entry.getValue().axiom, entry.getValue().probability));
         }
+        turtle = null;
+    }
+
+    public static int packOffset(int x, int y, int z) {
+        return (x + OFFSET_BIAS) | (y + OFFSET_BIAS) << 10 | (z + OFFSET_BIAS) << 20;
+    }
+
+    public static int offsetX(int offset) {
+        return (offset & OFFSET_MASK) - OFFSET_BIAS;
+    }
+
+    public static int offsetY(int offset) {
+        return (offset >> 10 & OFFSET_MASK) - OFFSET_BIAS;
+    }
+
+    public static int offsetZ(int offset) {
+        return (offset >> 20 & OFFSET_MASK) - OFFSET_BIAS;
+    }
+
+    /**
+     * @return true if the position lies in a leaf cube of the given size, which leaves out the cube's corners
+     */
+    private static boolean isLeaf(int x, int y, int z, int size) {
+        if (Math.abs(x) > size || Math.abs(y) > size || Math.abs(z) > size) {
+            return false;
+        }
+        return !(Math.abs(x) == size && Math.abs(y) == size && Math.abs(z) == size);
     }
 
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.construction;
+
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import org.terasology.dynamicCities.region.components.TreeGeneratorContainer;
+import org.terasology.dynamicCities.utilities.CoordinateKeys;
+import org.terasology.dynamicCities.world.trees.TreeGeneratorLSystem;
+import org.terasology.dynamicCities.world.trees.TreeSpecies;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.utilities.random.Random;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the block footprints of L-system trees per species and seed. A footprint is the sorted, duplicate free list
+ * of block offsets relative to the tree base, packed with {@link RecursiveTreeGeneratorLSystemRemover#packOffset}.
+ * Generated trees are all stored with seed 0, so in practice there is one entry per species; the least recently used
+ * footprints are dropped once the capacity is reached.
+ */
+public class TreeFootprintCache {
+
+    public static final int DEFAULT_CAPACITY = 512;
+
+    private final Map<TreeSpecies, RecursiveTreeGeneratorLSystemRemover> removers = new EnumMap<>(TreeSpecies.class);
+    private final Map<Long, int[]> footprints;
+
+    public TreeFootprintCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TreeFootprintCache(int capacity) {
+        footprints = new LinkedHashMap<Long, int[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return the footprint of the tree, or null if the species is not grown by an L-system
+     */
+    public int[] getFootprint(TreeSpecies species, int seed) {
+        long key = CoordinateKeys.pack(species.getId(), seed);
+        int[] footprint = footprints.get(key);
+        if (footprint == null) {
+            TreeGeneratorContainer tree = species.getDefinition();
+            if (!tree.className.equals(TreeGeneratorLSystem.class.toString())) {
+                return null;
+            }
+            footprint = computeFootprint(getRemover(species, tree), tree, seed);
+            footprints.put(key, footprint);
+        }
+        return footprint;
+    }
+
+    public int size() {
+        return footprints.size();
+    }
+
+    public void clear() {
+        footprints.clear();
+    }
+
+    private RecursiveTreeGeneratorLSystemRemover getRemover(TreeSpecies species, TreeGeneratorContainer tree) {
+        RecursiveTreeGeneratorLSystemRemover remover = removers.get(species);
+        if (remover == null) {
+            remover = new RecursiveTreeGeneratorLSystemRemover(0, 0, null);
+            remover.applySettings(tree);
+            removers.put(species, remover);
+        }
+        return remover;
+    }
+
+    private static int[] computeFootprint(RecursiveTreeGeneratorLSystemRemover remover, TreeGeneratorContainer tree, int seed) {
+        //Same random sequence as the rasterizer, see TreeGeneratorLSystem
+        Random random = new FastRandom(seed);
+        float angleOffset = random.nextFloat(-TreeGeneratorLSystem.MAX_ANGLE_OFFSET, TreeGeneratorLSystem.MAX_ANGLE_OFFSET);
+
+        TIntSet offsets = new TIntHashSet();
+        remover.trace(random, angleOffset, tree.initialAxiom, offsets);
+        int[] footprint = offsets.toArray();
+        //Sorted by z, then y, then x, so consecutive offsets mostly stay within one chunk
+        Arrays.sort(footprint);
+        return footprint;
+    }
+}
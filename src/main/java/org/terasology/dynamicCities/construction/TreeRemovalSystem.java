@@ -24,6 +24,7 @@ import org.terasology.dynamicCities.region.components.TreeGeneratorContainer;
 import org.terasology.dynamicCities.settlements.SettlementConstants;
 import org.terasology.dynamicCities.world.trees.TreeGeneratorCactus;
 import org.terasology.dynamicCities.world.trees.TreeGeneratorLSystem;
+import org.terasology.dynamicCities.world.trees.TreeSpecies;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.systems.BaseComponentSystem;
 import org.terasology.entitySystem.systems.RegisterMode;
@@ -31,24 +32,15 @@ import org.terasology.entitySystem.systems.RegisterSystem;
 import org.terasology.logic.location.LocationComponent;
 import org.terasology.math.Region3i;
 import org.terasology.math.geom.BaseVector3i;
-import org.terasology.math.geom.Matrix4f;
-import org.terasology.math.geom.Quat4f;
 import org.terasology.math.geom.Rect2i;
-import org.terasology.math.geom.Vector3f;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.registry.CoreRegistry;
 import org.terasology.registry.In;
 import org.terasology.registry.Share;
-import org.terasology.utilities.collection.CharSequenceIterator;
-import org.terasology.utilities.random.FastRandom;
-import org.terasology.utilities.random.Random;
 import org.terasology.world.WorldProvider;
 import org.terasology.world.block.Block;
 import org.terasology.world.block.BlockManager;
 
-import java.util.List;
-import java.util.Map;
-
 
 @Share(value = TreeRemovalSystem.class)
 @RegisterSystem(RegisterMode.AUTHORITY)
@@ -69,27 +61,51 @@ public class TreeRemovalSystem extends BaseComponentSystem {
 
     private Block air;
     private Logger logger = LoggerFactory.getLogger(TreeRemovalSystem.class);
-    private RecursiveTreeGeneratorLSystemRemover recursiveTreeRemover;
+    private TreeFootprintCache footprintCache;
 
     public void initialise() {
         blockManager = CoreRegistry.get(BlockManager.class);
         air = blockManager.getBlock("engine:air");
-        recursiveTreeRemover = new RecursiveTreeGeneratorLSystemRemover(99, 99, null, blockBufferSystem);
+        footprintCache = new TreeFootprintCache();
+    }
+
+    /**
+     * @return bounds for {@link #removeTreesInRegions(Rect2i, int[])} that do not contain any block yet
+     */
+    public static int[] emptyBounds() {
+        return new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE,
+                Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+    }
+
+    /**
+     * @return the region covered by the bounds, or null if they do not contain any block
+     */
+    public static Region3i toRegion(int[] bounds) {
+        if (bounds[0] > bounds[3]) {
+            return null;
+        }
+        return Region3i.createFromMinMax(new Vector3i(bounds[0], bounds[1], bounds[2]), new Vector3i(bounds[3], bounds[4], bounds[5]));
     }
 
-    //TODO Get it work with different seeds
     public void removeTreesInRegion(EntityRef region) {
         TreeFacetComponent trees = region.getComponent(TreeFacetComponent.class);
-        if (trees.getWorldEntries().isEmpty()) {
+        if (trees.size() == 0) {
             return;
         }
-        for (Map.Entry<BaseVector3i, TreeGeneratorContainer> tree : trees.getWorldEntries().entrySet()) {
-                removeTree(tree.getKey(), tree.getValue());
-                trees.relData.remove(trees.worldToRelative(tree.getKey().x(), tree.getKey().y(), tree.getKey().z()).toString());
-
+        Vector3i treePos = new Vector3i();
+        int[] bounds = emptyBounds();
+        for (int i = 0; i < trees.size(); i++) {
+            treePos.set(trees.getWorldX(i), trees.getWorldY(i), trees.getWorldZ(i));
+            removeTree(treePos, trees.getSpecies(i), trees.getSeed(i), bounds);
         }
+        trees.clear();
+        region.saveComponent(trees);
     }
-    public boolean removeTreesInRegion(EntityRef region, Rect2i area) {
+    /**
+     * @param bounds min x, y, z and max x, y, z, widened to every block buffered for removal
+     * @return false if the trees cannot be removed yet because the area is not loaded
+     */
+    public boolean removeTreesInRegion(EntityRef region, Rect2i area, int[] bounds) {
         TreeFacetComponent trees = region.getComponent(TreeFacetComponent.class);
         LocationComponent loc = region.getComponent(LocationComponent.class);
         Rect2i relevantArea = area.expand(SettlementConstants.MAX_TREE_RADIUS, SettlementConstants.MAX_TREE_RADIUS);
@@ -99,42 +115,53 @@ public class TreeRemovalSystem extends BaseComponentSystem {
             return false;
         }
 
-        for (Map.Entry<BaseVector3i, TreeGeneratorContainer> tree : trees.getWorldEntries().entrySet()) {
-            if (area.contains(tree.getKey().x(), tree.getKey().z())) {
-                removeTree(tree.getKey(), tree.getValue());
-                trees.relData.remove(trees.worldToRelative(tree.getKey().x(), tree.getKey().y(), tree.getKey().z()).toString());
-            }
+        int[] treesInArea = trees.getTreesInArea(area);
+        if (treesInArea.length == 0) {
+            return true;
         }
+        Vector3i treePos = new Vector3i();
+        for (int index : treesInArea) {
+            treePos.set(trees.getWorldX(index), trees.getWorldY(index), trees.getWorldZ(index));
+            removeTree(treePos, trees.getSpecies(index), trees.getSeed(index), bounds);
+        }
+        trees.removeTrees(treesInArea);
+        region.saveComponent(trees);
         return true;
     }
 
-    public boolean removeTreesInRegions(Rect2i area) {
-        List<EntityRef> regions = regionEntityManager.getRegionsInArea(area);
-        for (EntityRef region : regions) {
-            if (!region.hasComponent(RoughnessFacetComponent.class)) {
+    /**
+     * Buffers the removal of the trees in the area, region by region.
+     * @param bounds min x, y, z and max x, y, z, see {@link #emptyBounds()}. Widened to every block buffered for
+     *               removal, including those of regions handled before a call that returns false
+     * @return false if some of the regions are not loaded yet
+     */
+    public boolean removeTreesInRegions(Rect2i area, int[] bounds) {
+        return regionEntityManager.forEachRegionInArea(area, region -> {
+            RoughnessFacetComponent roughnessFacetComponent = region.getComponent(RoughnessFacetComponent.class);
+            if (roughnessFacetComponent == null) {
                 return false;
             }
-            if (region.getComponent(RoughnessFacetComponent.class).worldRegion.overlaps(area)) {
-                if (!removeTreesInRegion(region, area)) {
-                    return false;
-                }
-            }
-        }
-        return true;
+            return !roughnessFacetComponent.worldRegion.overlaps(area) || removeTreesInRegion(region, area, bounds);
+        });
     }
 
-    private void removeTree(BaseVector3i pos, TreeGeneratorContainer tree) {
-        int seed = pos.hashCode();
-        Random random = new FastRandom(0);
-        Vector3f position = new Vector3f(0f, 0f, 0f);
-
-        Matrix4f rotation = new Matrix4f(new Quat4f(new Vector3f(0f, 0f, 1f), (float) Math.PI / 2f), Vector3f.ZERO, 1.0f);
-
-        float angleOffset = random.nextFloat(-TreeGeneratorLSystem.MAX_ANGLE_OFFSET, TreeGeneratorLSystem.MAX_ANGLE_OFFSET);
+    private void removeTree(BaseVector3i pos, TreeSpecies species, int seed, int[] bounds) {
+        if (species == null) {
+            logger.error("Failed to remove tree at {} due to an unknown tree species", pos);
+            return;
+        }
+        TreeGeneratorContainer tree = species.getDefinition();
 
         if (tree.className.equals(TreeGeneratorLSystem.class.toString())) {
-            recursiveTreeRemover.applySettings(tree);
-            recursiveTreeRemover.recurse(random, pos.x(), pos.y(), pos.z(), angleOffset, new CharSequenceIterator(tree.initialAxiom), position, rotation, air, 0);
+            int[] footprint = footprintCache.getFootprint(species, seed);
+            Vector3i blockPosition = new Vector3i();
+            for (int offset : footprint) {
+                blockPosition.set(pos.x() + RecursiveTreeGeneratorLSystemRemover.offsetX(offset),
+                        pos.y() + RecursiveTreeGeneratorLSystemRemover.offsetY(offset),
+                        pos.z() + RecursiveTreeGeneratorLSystemRemover.offsetZ(offset));
+                blockBufferSystem.saveBlock(blockPosition, air);
+                include(bounds, blockPosition);
+            }
         } else if (tree.className.equals(TreeGeneratorCactus.class.toString())) {
             for (int y = pos.y(); y < pos.y() + 3; y++) {
                 Vector3i blockPosition = new Vector3i(pos.x(), y, pos.z());
@@ -145,6 +172,12 @@ public class TreeRemovalSystem extends BaseComponentSystem {
         }
     }
 
-
-
+    private static void include(int[] bounds, BaseVector3i pos) {
+        bounds[0] = Math.min(bounds[0], pos.x());
+        bounds[1] = Math.min(bounds[1], pos.y());
+        bounds[2] = Math.min(bounds[2], pos.z());
+        bounds[3] = Math.max(bounds[3], pos.x());
+        bounds[4] = Math.max(bounds[4], pos.y());
+        bounds[5] = Math.max(bounds[5], pos.z());
+    }
 }
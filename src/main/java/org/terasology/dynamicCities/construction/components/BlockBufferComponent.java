@@ -17,15 +17,25 @@ package org.terasology.dynamicCities.construction.components;
 
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.terasology.dynamicCities.construction.BufferedBlock;
 import org.terasology.entitySystem.Component;
 
 
 public final class BlockBufferComponent implements Component {
+    //Only read to migrate older saves, the buffer is persisted in chunks
     public List<BufferedBlock> blockBuffer;
 
+    //Block URIs referenced by the encoded chunks, append-only so unchanged chunks stay valid
+    public List<String> palette;
+    //Chunk position to the chunk's pending blocks, see BlockBufferCodec
+    public Map<String, byte[]> chunks;
+
     public BlockBufferComponent() {
         blockBuffer = new ArrayList<>();
+        palette = new ArrayList<>();
+        chunks = new HashMap<>();
     }
 }
@@ -15,6 +15,7 @@
  */
 package org.terasology.dynamicCities.facets;
 
+import org.terasology.dynamicCities.utilities.GridIndex;
 import org.terasology.math.Region3i;
 import org.terasology.math.geom.Rect2i;
 import org.terasology.math.geom.Vector2i;
@@ -34,6 +35,7 @@ public abstract class Grid2DFacet extends BaseFacet2D {
     protected Vector2i center;
     protected Rect2i gridWorldRegion;
     protected Rect2i gridRelativeRegion;
+    protected GridIndex gridIndex;
 
     public Grid2DFacet(Region3i targetRegion, Border3D border, int gridSize) {
         super(targetRegion, border);
@@ -47,6 +49,7 @@ public abstract class Grid2DFacet extends BaseFacet2D {
         gridRelativeRegion = Rect2i.createFromMinAndMax(0, 0,
                 targetRegion.sizeX() / gridSize,
                 targetRegion.sizeY() / gridSize);
+        gridIndex = new GridIndex(getWorldRegion(), null, gridWorldRegion, gridRelativeRegion, center, gridSize);
     }
 
     public Vector2i getWorldPoint(Vector2i gridPoint) {
@@ -54,18 +57,7 @@ public abstract class Grid2DFacet extends BaseFacet2D {
     }
 
     public Vector2i getWorldPoint(int x, int y) {
-        if (!gridWorldRegion.contains(x,y)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, y, gridWorldRegion.toString()));
-        }
-        int xRelative = x - center.x();
-        int yRelative = y - center.y();
-        int xNew = center.x() + Math.round((float) xRelative * gridSize);
-        int yNew = center.y() + Math.round((float) yRelative * gridSize);
-        Vector2i gridPoint = new Vector2i(xNew, yNew);
-        if (!getWorldRegion().contains(gridPoint)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", xNew, yNew, getWorldRegion().toString()));
-        }
-        return gridPoint;
+        return gridIndex.worldPoint(x, y);
     }
 
     public Vector2i getRelativeGridPoint(Vector2i worldPoint) {
@@ -73,17 +65,7 @@ public abstract class Grid2DFacet extends BaseFacet2D {
     }
 
     public Vector2i getRelativeGridPoint(int x, int y) {
-        /*
-        if (!getRelativeRegion().contains(x, y)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, y, getRelativeRegion().toString()));
-        }*/
-        int xNew = Math.round((float) x / gridSize);
-        int yNew = Math.round((float) y / gridSize);
-        Vector2i gridPoint = new Vector2i(xNew, yNew);
-        if (!gridRelativeRegion.contains(gridPoint)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", xNew, yNew, gridRelativeRegion.toString()));
-        }
-        return gridPoint;
+        return gridIndex.relativeGridPoint(x, y);
     }
 
     public Vector2i getWorldGridPoint(Vector2i worldPoint) {
@@ -91,18 +73,7 @@ public abstract class Grid2DFacet extends BaseFacet2D {
     }
 
     public Vector2i getWorldGridPoint(int x, int y) {
-        if (!getWorldRegion().contains(x, y)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, y, getWorldRegion().toString()));
-        }
-        int xRelative = x - center.x();
-        int yRelative = y - center.y();
-        int xNew = center.x() + Math.round((float) xRelative / gridSize);
-        int yNew = center.y() + Math.round((float) yRelative / gridSize);
-        Vector2i gridPoint = new Vector2i(xNew, yNew);
-        if (!gridWorldRegion.contains(gridPoint)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", xNew, yNew, gridWorldRegion.toString()));
-        }
-        return gridPoint;
+        return gridIndex.worldGridPoint(x, y);
     }
 
     public int getGridSize() {
@@ -113,18 +84,38 @@ public abstract class Grid2DFacet extends BaseFacet2D {
         return center;
     }
 
+    public GridIndex getGridIndex() {
+        return gridIndex;
+    }
+
+    /**
+     * @return the index of the first cell of the given world grid row in the internal data
+     */
+    public int getRowStart(int gridY) {
+        return gridIndex.rowStart(gridY);
+    }
+
+    /**
+     * @return the number of cells in each row of the internal data
+     */
+    public int getRowLength() {
+        return gridIndex.getSizeX();
+    }
+
+    public int getCellGridX(int index) {
+        return gridIndex.cellGridX(index);
+    }
+
+    public int getCellGridY(int index) {
+        return gridIndex.cellGridY(index);
+    }
+
     protected final int getRelativeGridIndex(int x, int z) {
-        if (!gridRelativeRegion.contains(x, z)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, z, gridWorldRegion.toString()));
-        }
-        return x - gridRelativeRegion.minX() + gridRelativeRegion.sizeX() * (z - gridRelativeRegion.minY());
+        return gridIndex.relativeGridIndex(x, z);
     }
 
     protected final int getWorldGridIndex(int x, int z) {
-        if (!gridWorldRegion.contains(x, z)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, z, gridWorldRegion.toString()));
-        }
-        return x - gridWorldRegion.minX() + gridWorldRegion.sizeX() * (z - gridWorldRegion.minY());
+        return gridIndex.worldGridIndex(x, z);
     }
 
     public Rect2i getGridWorldRegion() {
@@ -37,23 +37,31 @@ public abstract class Grid2DFloatFacet extends Grid2DFacet {
 
 
     public float get(int x, int y) {
-        BaseVector2i gridPos = getRelativeGridPoint(x, y);
-        return data[getRelativeGridIndex(gridPos.x(), gridPos.y())];
+        return data[gridIndex.relativeIndex(x, y)];
     }
 
     public float get(BaseVector2i pos) {
-        BaseVector2i gridPos = getRelativeGridPoint(pos.x(), pos.y());
-        return get(gridPos.x(), gridPos.y());
+        return get(pos.x(), pos.y());
     }
 
     public float getWorld(int x, int y) {
-        BaseVector2i gridPos = getWorldGridPoint(x, y);
-        return data[getWorldGridIndex(gridPos.x(), gridPos.y())];
+        return data[gridIndex.worldIndex(x, y)];
     }
 
     public float getWorld(BaseVector2i pos) {
-        BaseVector2i gridPos = getWorldGridPoint(pos.x(), pos.y());
-        return getWorld(gridPos.x(), gridPos.y());
+        return getWorld(pos.x(), pos.y());
+    }
+
+    /**
+     * Visits every cell row by row, in the order of the internal data.
+     */
+    public void forEachCell(CellConsumer consumer) {
+        int index = 0;
+        for (int gridY = gridWorldRegion.minY(); gridY <= gridWorldRegion.maxY(); gridY++) {
+            for (int gridX = gridWorldRegion.minX(); gridX <= gridWorldRegion.maxX(); gridX++) {
+                consumer.accept(gridX, gridY, data[index++]);
+            }
+        }
     }
 
     public float[] getInternal() {
@@ -61,23 +69,19 @@ public abstract class Grid2DFloatFacet extends Grid2DFacet {
     }
 
     public void set(int x, int y, float value) {
-        BaseVector2i gridPos = getRelativeGridPoint(x, y);
-        data[getRelativeGridIndex(gridPos.x(), gridPos.y())] = value;
+        data[gridIndex.relativeIndex(x, y)] = value;
     }
 
     public void set(BaseVector2i pos, float value) {
-        BaseVector2i gridPos = getRelativeGridPoint(pos.x(), pos.y());
         set(pos.x(), pos.y(), value);
     }
 
     public void setWorld(int x, int y, float value) {
-        BaseVector2i gridPos = getWorldGridPoint(x,y);
-        data[getWorldGridIndex(gridPos.x(), gridPos.y())] = value;
+        data[gridIndex.worldIndex(x, y)] = value;
     }
 
     public void setWorld(BaseVector2i pos, float value) {
-        BaseVector2i gridPos = getWorldGridPoint(pos.x(), pos.y());
-        setWorld(gridPos.x(), gridPos.y(), value);
+        setWorld(pos.x(), pos.y(), value);
     }
 
     public void set(float[] newData) {
@@ -85,4 +89,9 @@ public abstract class Grid2DFloatFacet extends Grid2DFacet {
         System.arraycopy(newData, 0, data, 0, newData.length);
     }
 
+    @FunctionalInterface
+    public interface CellConsumer {
+        void accept(int gridX, int gridY, float value);
+    }
+
 }
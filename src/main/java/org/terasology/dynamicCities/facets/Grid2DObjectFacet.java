@@ -41,23 +41,31 @@ public abstract class Grid2DObjectFacet<T> extends Grid2DFacet {
 
 
     public T get(int x, int y) {
-        BaseVector2i gridPos = getRelativeGridPoint(x, y);
-        return data[getRelativeGridIndex(gridPos.x(), gridPos.y())];
+        return data[gridIndex.relativeIndex(x, y)];
     }
 
     public T get(BaseVector2i pos) {
-        BaseVector2i gridPos = getRelativeGridPoint(pos.x(), pos.y());
-        return get(gridPos.x(), gridPos.y());
+        return get(pos.x(), pos.y());
     }
 
     public T getWorld(int x, int y) {
-        BaseVector2i gridPos = getWorldGridPoint(x, y);
-        return data[getWorldGridIndex(gridPos.x(), gridPos.y())];
+        return data[gridIndex.worldIndex(x, y)];
     }
 
     public T getWorld(BaseVector2i pos) {
-        BaseVector2i gridPos = getWorldGridPoint(pos.x(), pos.y());
-        return getWorld(gridPos.x(), gridPos.y());
+        return getWorld(pos.x(), pos.y());
+    }
+
+    /**
+     * Visits every cell row by row, in the order of the internal data.
+     */
+    public void forEachCell(CellConsumer<? super T> consumer) {
+        int index = 0;
+        for (int gridY = gridWorldRegion.minY(); gridY <= gridWorldRegion.maxY(); gridY++) {
+            for (int gridX = gridWorldRegion.minX(); gridX <= gridWorldRegion.maxX(); gridX++) {
+                consumer.accept(gridX, gridY, data[index++]);
+            }
+        }
     }
 
     public T[] getInternal() {
@@ -65,23 +73,19 @@ public abstract class Grid2DObjectFacet<T> extends Grid2DFacet {
     }
 
     public void set(int x, int y, T value) {
-        BaseVector2i gridPos = getRelativeGridPoint(x, y);
-        data[getRelativeGridIndex(gridPos.x(), gridPos.y())] = value;
+        data[gridIndex.relativeIndex(x, y)] = value;
     }
 
     public void set(BaseVector2i pos, T value) {
-        BaseVector2i gridPos = getRelativeGridPoint(pos.x(), pos.y());
         set(pos.x(), pos.y(), value);
     }
 
     public void setWorld(int x, int y, T value) {
-        BaseVector2i gridPos = getWorldGridPoint(x, y);
-        data[getWorldGridIndex(gridPos.x(), gridPos.y())] = value;
+        data[gridIndex.worldIndex(x, y)] = value;
     }
 
     public void setWorld(BaseVector2i pos, T value) {
-        BaseVector2i gridPos = getWorldGridPoint(pos.x(), pos.y());
-        setWorld(gridPos.x(), gridPos.y(), value);
+        setWorld(pos.x(), pos.y(), value);
     }
 
     public void set(T[] newData) {
@@ -89,4 +93,9 @@ public abstract class Grid2DObjectFacet<T> extends Grid2DFacet {
         System.arraycopy(newData, 0, data, 0, newData.length);
     }
 
+    @FunctionalInterface
+    public interface CellConsumer<T> {
+        void accept(int gridX, int gridY, T value);
+    }
+
 }
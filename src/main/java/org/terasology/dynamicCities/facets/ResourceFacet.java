@@ -17,97 +17,82 @@ package org.terasology.dynamicCities.facets;
 
 import com.google.common.base.Preconditions;
 import org.terasology.dynamicCities.resource.Resource;
+import org.terasology.dynamicCities.resource.ResourceType;
 import org.terasology.math.Region3i;
 import org.terasology.math.geom.BaseVector2i;
-import org.terasology.math.geom.Vector2i;
 import org.terasology.world.generation.Border3D;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
+/**
+ * Counts the resources per grid cell. The amounts are stored in one array, with {@link #TYPE_COUNT} consecutive
+ * entries per cell indexed by the {@link ResourceType} ordinal, and a running total is kept per type.
+ */
 public class ResourceFacet extends Grid2DFacet {
 
+    public static final int TYPE_COUNT = ResourceType.values().length;
 
-    private Region3i region;
-    private Map<String, Resource>[] data;
+    private int[] amounts;
+    private final int[] totals = new int[TYPE_COUNT];
 
-    @SuppressWarnings(value = "unchecked")
     public ResourceFacet(Region3i targetRegion, Border3D border, int gridSize) {
         super(targetRegion, border, gridSize);
-        data = new HashMap[gridWorldRegion.area()];
-        for (int i = 0; i < data.length; i++) {
-            data[i] = new HashMap<>();
-        }
+        //Sized for the relative grid, which is the larger of the two and the one the rasterizers write through
+        amounts = new int[Math.max(gridRelativeRegion.area(), gridWorldRegion.area()) * TYPE_COUNT];
     }
 
-    //Modify that to get resources per grid cell!
-    public void addResource(Resource resource, Vector2i pos) {
-        if (get(pos).containsKey(resource.getType().toString())) {
-            get(pos).get(resource.getType().toString()).amount += resource.amount;
-        } else {
-            get(pos).put(resource.getType().toString(), resource);
-        }
+    public void addResource(Resource resource, BaseVector2i pos) {
+        addResource(resource.getType(), resource.amount, pos.x(), pos.y());
     }
 
-    public int getResourceSum(String resourceType) {
-        int sum = 0;
-        for (Map<String, Resource> map : data) {
-            if (map.containsKey(resourceType)) {
-                sum += map.get(resourceType).amount;
-            }
-        }
-        return sum;
+    /**
+     * Adds to the amount of the grid cell containing the relative position.
+     */
+    public void addResource(ResourceType type, int amount, int x, int y) {
+        amounts[gridIndex.relativeIndex(x, y) * TYPE_COUNT + type.ordinal()] += amount;
+        totals[type.ordinal()] += amount;
     }
 
-    public Map<String, Resource> get(int x, int y) {
-        BaseVector2i gridPos = getRelativeGridPoint(x, y);
-        return data[getRelativeGridIndex(gridPos.x(), gridPos.y())];
+    public int getResourceSum(ResourceType type) {
+        return totals[type.ordinal()];
     }
 
-    public Map<String, Resource> get(BaseVector2i pos) {
-        BaseVector2i gridPos = getRelativeGridPoint(pos.x(), pos.y());
-        return get(gridPos.x(), gridPos.y());
-    }
-
-    public Map<String, Resource> getWorld(int x, int y) {
-        BaseVector2i gridPos = getWorldGridPoint(x, y);
-        return data[getWorldGridIndex(gridPos.x(), gridPos.y())];
+    public int getResourceSum(String resourceType) {
+        ResourceType type = ResourceType.fromString(resourceType);
+        return type == null ? 0 : getResourceSum(type);
     }
 
-    public Map<String, Resource> getWorld(BaseVector2i pos) {
-        BaseVector2i gridPos = getWorldGridPoint(pos.x(), pos.y());
-        return getWorld(gridPos.x(), gridPos.y());
+    public int get(int x, int y, ResourceType type) {
+        return amounts[gridIndex.relativeIndex(x, y) * TYPE_COUNT + type.ordinal()];
     }
 
-    public Map<String, Resource>[] getInternal() {
-        return data;
+    public int get(BaseVector2i pos, ResourceType type) {
+        return get(pos.x(), pos.y(), type);
     }
 
-    public void set(int x, int y, Map<String, Resource> value) {
-        BaseVector2i gridPos = getRelativeGridPoint(x, y);
-        data[getRelativeGridIndex(gridPos.x(), gridPos.y())] = value;
+    public int getWorld(int x, int y, ResourceType type) {
+        return amounts[gridIndex.worldIndex(x, y) * TYPE_COUNT + type.ordinal()];
     }
 
-    public void set(BaseVector2i pos, Map<String, Resource> value) {
-        BaseVector2i gridPos = getRelativeGridPoint(pos.x(), pos.y());
-        set(pos.x(), pos.y(), value);
+    public int getWorld(BaseVector2i pos, ResourceType type) {
+        return getWorld(pos.x(), pos.y(), type);
     }
 
-    public void setWorld(int x, int y, Map<String, Resource> value) {
-        BaseVector2i gridPos = getWorldGridPoint(x, y);
-        data[getWorldGridIndex(gridPos.x(), gridPos.y())] = value;
+    public int[] getInternal() {
+        return amounts;
     }
 
-    public void setWorld(BaseVector2i pos, Map<String, Resource> value) {
-        BaseVector2i gridPos = getWorldGridPoint(pos.x(), pos.y());
-        setWorld(gridPos.x(), gridPos.y(), value);
+    public void set(int[] newData) {
+        Preconditions.checkArgument(newData.length == amounts.length, "New data must have same length as existing");
+        System.arraycopy(newData, 0, amounts, 0, newData.length);
+        updateTotals();
     }
 
-    public void set(Map[] newData) {
-        Preconditions.checkArgument(newData.length == data.length, "New data must have same length as existing");
-        System.arraycopy(newData, 0, data, 0, newData.length);
+    private void updateTotals() {
+        Arrays.fill(totals, 0);
+        for (int i = 0; i < amounts.length; i++) {
+            totals[i % TYPE_COUNT] += amounts[i];
+        }
     }
 
 }
-
-
@@ -16,67 +16,135 @@
 package org.terasology.dynamicCities.facets;
 
 import org.terasology.math.Region3i;
-import org.terasology.math.TeraMath;
-import org.terasology.math.geom.BaseVector2i;
 import org.terasology.math.geom.Rect2i;
-import org.terasology.math.geom.Vector2i;
 import org.terasology.world.generation.Border3D;
 import org.terasology.world.generation.facets.base.BaseFieldFacet2D;
 
 
 public class RoughnessFacet extends Grid2DFloatFacet {
 
+    private float meanDeviation = Float.NaN;
 
     public RoughnessFacet(Region3i targetRegion, Border3D border, int gridSize) {
         super(targetRegion, border, gridSize);
     }
 
-    //Determines the std. deviation of the height in a given cell and saves it to the facet
-    public void calcRoughness(Vector2i gridPoint, BaseFieldFacet2D facet) {
-
-        int halfGridSize = Math.round(gridSize / 2);
-        Rect2i gridCell = Rect2i.createFromMinAndMax(gridPoint.sub(halfGridSize, halfGridSize), gridPoint.add(halfGridSize, halfGridSize));
-        float deviation = 0;
-        float meanValue = meanHeight(gridCell, facet);
-        for(BaseVector2i pos : gridCell.contents()) {
-            deviation += Math.pow(facet.getWorld(pos) - meanValue,2);
+    /**
+     * Sets every grid cell to the standard deviation of the surface height within the cell. Cells whose center lies
+     * at or below sea level are set to -1000 instead. Mean and variance come from summed-area tables of the height and
+     * the squared height, which are built in one pass over the surface facet.
+     */
+    public void calcRoughness(BaseFieldFacet2D surfaceFacet, int seaLevel) {
+        Rect2i surfaceRegion = surfaceFacet.getWorldRegion();
+        float[] heights = surfaceFacet.getInternal();
+        int minX = surfaceRegion.minX();
+        int minY = surfaceRegion.minY();
+        int sizeX = surfaceRegion.sizeX();
+        int sizeY = surfaceRegion.sizeY();
+
+        //(sizeX + 1) * (sizeY + 1) entries, row and column 0 are zero
+        int stride = sizeX + 1;
+        double[] sums = new double[stride * (sizeY + 1)];
+        double[] squareSums = new double[stride * (sizeY + 1)];
+        for (int y = 0; y < sizeY; y++) {
+            double rowSum = 0;
+            double rowSquareSum = 0;
+            for (int x = 0; x < sizeX; x++) {
+                double height = heights[x + y * sizeX];
+                rowSum += height;
+                rowSquareSum += height * height;
+                int index = (x + 1) + (y + 1) * stride;
+                sums[index] = sums[index - stride] + rowSum;
+                squareSums[index] = squareSums[index - stride] + rowSquareSum;
+            }
         }
 
-        deviation = TeraMath.sqrt(deviation / (gridCell.area()));
-        setWorld(gridPoint, deviation);
+        //A cell covers the blocks that getWorldGridPoint rounds to it
+        int halfGridSize = gridSize / 2;
+        for (int gridY = gridWorldRegion.minY(); gridY <= gridWorldRegion.maxY(); gridY++) {
+            int worldY = gridIndex.toWorldY(gridY);
+            int cell = gridIndex.rowStart(gridY);
+            for (int gridX = gridWorldRegion.minX(); gridX <= gridWorldRegion.maxX(); gridX++, cell++) {
+                int worldX = gridIndex.toWorldX(gridX);
+                if (!surfaceRegion.contains(worldX, worldY) || heights[(worldX - minX) + (worldY - minY) * sizeX] <= seaLevel) {
+                    data[cell] = -1000;
+                    continue;
+                }
+                int x0 = Math.max(worldX - halfGridSize, minX) - minX;
+                int y0 = Math.max(worldY - halfGridSize, minY) - minY;
+                int x1 = Math.min(worldX - halfGridSize + gridSize, minX + sizeX) - minX;
+                int y1 = Math.min(worldY - halfGridSize + gridSize, minY + sizeY) - minY;
+                int area = (x1 - x0) * (y1 - y0);
+                double sum = sums[x1 + y1 * stride] - sums[x0 + y1 * stride] - sums[x1 + y0 * stride] + sums[x0 + y0 * stride];
+                double squareSum = squareSums[x1 + y1 * stride] - squareSums[x0 + y1 * stride]
+                        - squareSums[x1 + y0 * stride] + squareSums[x0 + y0 * stride];
+                double mean = sum / area;
+                data[cell] = (float) Math.sqrt(Math.max(squareSum / area - mean * mean, 0));
+            }
+        }
+        meanDeviation = calcMeanDeviation();
     }
 
-    //Speed up calculating mean value of the height in a grid cell
-    private float meanHeight(Rect2i gridCell, BaseFieldFacet2D facet) {
-
-        Vector2i max = gridCell.max();
-        Vector2i min = gridCell.min();
-
-        Vector2i[] positions = new Vector2i[5];
-        positions[0] = new Vector2i(max.x(), max.y());
-        positions[1] = new Vector2i(min.x(), min.y());
-        positions[2] = new Vector2i(min.x() + gridCell.sizeX(), min.y());
-        positions[3] = new Vector2i(min.x(), min.y() + gridCell.sizeY());
-        positions[4] = new Vector2i(min.x() + Math.round(0.5f * gridCell.sizeX()), min.y() + Math.round(0.5f * gridCell.sizeY()));
+    /**
+     * @return the sum over all world positions of the deviation of the cell they fall into, divided by the number of
+     * grid cells rather than world positions, which keeps the scale of the former per-position sum. Computed at the
+     * end of {@link #calcRoughness} and again after the cells were changed through a setter. Writes to
+     * {@link #getInternal()} are not tracked.
+     */
+    public float getMeanDeviation() {
+        if (Float.isNaN(meanDeviation)) {
+            meanDeviation = calcMeanDeviation();
+        }
+        return meanDeviation;
+    }
 
-        float mean = 0;
+    @Override
+    public void set(int x, int y, float value) {
+        super.set(x, y, value);
+        meanDeviation = Float.NaN;
+    }
 
-        for (int i = 0; i < positions.length; i++) {
-            mean += facet.getWorld(positions[i]);
-        }
+    @Override
+    public void setWorld(int x, int y, float value) {
+        super.setWorld(x, y, value);
+        meanDeviation = Float.NaN;
+    }
 
-        return mean / positions.length;
+    @Override
+    public void set(float[] newData) {
+        super.set(newData);
+        meanDeviation = Float.NaN;
     }
 
-    public float getMeanDeviation() {
+    //Weighs every cell by the number of world positions mapping to it, which factors into columns times rows
+    private float calcMeanDeviation() {
+        Rect2i worldRegion = getWorldRegion();
+        int[] columns = new int[gridWorldRegion.sizeX()];
+        for (int x = worldRegion.minX(); x <= worldRegion.maxX(); x++) {
+            int cell = gridIndex.toWorldGridX(x) - gridWorldRegion.minX();
+            if (cell >= 0 && cell < columns.length) {
+                columns[cell]++;
+            }
+        }
+        int[] rows = new int[gridWorldRegion.sizeY()];
+        for (int y = worldRegion.minY(); y <= worldRegion.maxY(); y++) {
+            int cell = gridIndex.toWorldGridY(y) - gridWorldRegion.minY();
+            if (cell >= 0 && cell < rows.length) {
+                rows[cell]++;
+            }
+        }
         float mean = 0;
-        for(BaseVector2i pos : getWorldRegion().contents()) {
-            mean += getWorld(pos);
+        for (int y = 0; y < rows.length; y++) {
+            if (rows[y] == 0) {
+                continue;
+            }
+            int rowStart = gridIndex.rowStart(gridWorldRegion.minY() + y);
+            for (int x = 0; x < columns.length; x++) {
+                mean += data[rowStart + x] * columns[x] * rows[y];
+            }
         }
         mean /= getGridRelativeRegion().area();
 
         return mean;
     }
 }
-
-
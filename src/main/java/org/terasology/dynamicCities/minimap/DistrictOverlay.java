@@ -22,10 +22,10 @@ import org.terasology.dynamicCities.districts.DistrictType;
 import org.terasology.dynamicCities.parcels.ParcelList;
 import org.terasology.dynamicCities.settlements.SettlementsCacheComponent;
 import org.terasology.dynamicCities.settlements.components.DistrictFacetComponent;
+import org.terasology.dynamicCities.utilities.GridIndex;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.logic.location.LocationComponent;
 import org.terasology.math.TeraMath;
-import org.terasology.math.geom.BaseVector2i;
 import org.terasology.math.geom.Circle;
 import org.terasology.math.geom.Rect2f;
 import org.terasology.math.geom.Rect2fTransformer;
@@ -86,18 +86,31 @@ public class DistrictOverlay implements MinimapOverlay {
             Circle cityRadius = new Circle(pos.x, pos.y, parcelList.builtUpRadius);
             Rect2f worldRectExpanded = worldRect.expand(districtFacet.getGridSize(), districtFacet.getGridSize());
             if (Vector2f.distance(worldRect.min(), pos) <= settlement.getComponent(ParcelList.class).builtUpRadius + worldRect.size().length()) {
-                for (BaseVector2i point : districtFacet.getGridWorldRegion().contents()) {
-                    Vector2i worldPoint = districtFacet.getWorldPoint(point.x(), point.y());
-
-                    if (worldRectExpanded.contains(worldPoint) && cityRadius.contains(worldPoint)) {
-                        int lx = TeraMath.floorToInt(t.applyX(worldPoint.getX()));
-                        int ly = TeraMath.floorToInt(t.applyY(worldPoint.getY()));
-                        int sizeX = Math.round(districtFacet.getGridSize() * t.getScaleX());
-                        int sizeY = Math.round(districtFacet.getGridSize() * t.getScaleY());
-                        DistrictType districtType = districtFacet.getDistrict(worldPoint.x(), worldPoint.y());
-                        Color districtColor = districtType.getColor().alterAlpha(130);
-                        Rect2i gridRect = Rect2i.createFromMinAndSize(lx, ly, sizeX, sizeY);
-                        canvas.drawFilledRectangle(gridRect, districtColor);
+                //Only visit the grid cells that can fall into the expanded world rect
+                GridIndex gridIndex = districtFacet.getGridIndex();
+                Rect2i gridRegion = districtFacet.getGridWorldRegion();
+                Rect2i worldRegion = districtFacet.worldRegion;
+                int minGridX = Math.max(gridIndex.toWorldGridX(TeraMath.floorToInt(worldRectExpanded.minX())), gridRegion.minX());
+                int minGridY = Math.max(gridIndex.toWorldGridY(TeraMath.floorToInt(worldRectExpanded.minY())), gridRegion.minY());
+                int maxGridX = Math.min(gridIndex.toWorldGridX(TeraMath.ceilToInt(worldRectExpanded.maxX())), gridRegion.maxX());
+                int maxGridY = Math.min(gridIndex.toWorldGridY(TeraMath.ceilToInt(worldRectExpanded.maxY())), gridRegion.maxY());
+                int sizeX = Math.round(districtFacet.getGridSize() * t.getScaleX());
+                int sizeY = Math.round(districtFacet.getGridSize() * t.getScaleY());
+                Vector2i worldPoint = new Vector2i();
+                for (int gridY = minGridY; gridY <= maxGridY; gridY++) {
+                    for (int gridX = minGridX; gridX <= maxGridX; gridX++) {
+                        worldPoint.set(gridIndex.toWorldX(gridX), gridIndex.toWorldY(gridY));
+                        if (!worldRegion.contains(worldPoint)) {
+                            continue;
+                        }
+                        if (worldRectExpanded.contains(worldPoint) && cityRadius.contains(worldPoint)) {
+                            int lx = TeraMath.floorToInt(t.applyX(worldPoint.getX()));
+                            int ly = TeraMath.floorToInt(t.applyY(worldPoint.getY()));
+                            DistrictType districtType = districtFacet.getDistrictAtWorldGrid(gridX, gridY);
+                            Color districtColor = districtType.getColor().alterAlpha(130);
+                            Rect2i gridRect = Rect2i.createFromMinAndSize(lx, ly, sizeX, sizeY);
+                            canvas.drawFilledRectangle(gridRect, districtColor);
+                        }
                     }
                 }
             }
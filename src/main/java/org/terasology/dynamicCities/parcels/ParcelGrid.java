@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.parcels;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import org.terasology.dynamicCities.utilities.CoordinateKeys;
+import org.terasology.math.geom.Rect2i;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid of buckets over parcel shapes, so overlap tests only look at parcels close to the queried rectangle.
+ * A parcel is bucketed by the shape it had when it was added. Shapes may only shrink afterwards
+ * (as {@code Construction.buildParcel} does), which keeps every parcel inside its buckets.
+ * Parcels are tracked by identity, matching {@link DynParcel} not overriding equals.
+ */
+public class ParcelGrid {
+
+    public static final int BUCKET_SIZE = 32;
+
+    private final TLongObjectMap<List<DynParcel>> buckets = new TLongObjectHashMap<>();
+    //Bucket range each parcel was inserted with, in bucket coordinates
+    private final Map<DynParcel, Rect2i> bucketRanges = new IdentityHashMap<>();
+
+    public ParcelGrid() { }
+
+    public ParcelGrid(Iterable<DynParcel> parcels) {
+        for (DynParcel parcel : parcels) {
+            add(parcel);
+        }
+    }
+
+    public void add(DynParcel parcel) {
+        if (bucketRanges.containsKey(parcel)) {
+            return;
+        }
+        Rect2i shape = parcel.getShape();
+        Rect2i range = Rect2i.createFromMinAndMax(toBucket(shape.minX()), toBucket(shape.minY()),
+                toBucket(shape.maxX()), toBucket(shape.maxY()));
+        bucketRanges.put(parcel, range);
+        for (int z = range.minY(); z <= range.maxY(); z++) {
+            for (int x = range.minX(); x <= range.maxX(); x++) {
+                long key = CoordinateKeys.pack(x, z);
+                List<DynParcel> bucket = buckets.get(key);
+                if (bucket == null) {
+                    bucket = new ArrayList<>(4);
+                    buckets.put(key, bucket);
+                }
+                bucket.add(parcel);
+            }
+        }
+    }
+
+    public void remove(DynParcel parcel) {
+        Rect2i range = bucketRanges.remove(parcel);
+        if (range == null) {
+            return;
+        }
+        for (int z = range.minY(); z <= range.maxY(); z++) {
+            for (int x = range.minX(); x <= range.maxX(); x++) {
+                long key = CoordinateKeys.pack(x, z);
+                List<DynParcel> bucket = buckets.get(key);
+                if (bucket != null && bucket.remove(parcel) && bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if any parcel in the grid overlaps the given rectangle
+     */
+    public boolean overlaps(Rect2i rect) {
+        if (rect.isEmpty()) {
+            return false;
+        }
+        for (int z = toBucket(rect.minY()); z <= toBucket(rect.maxY()); z++) {
+            for (int x = toBucket(rect.minX()); x <= toBucket(rect.maxX()); x++) {
+                List<DynParcel> bucket = buckets.get(CoordinateKeys.pack(x, z));
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 0; i < bucket.size(); i++) {
+                    if (bucket.get(i).getShape().overlaps(rect)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return bucketRanges.size();
+    }
+
+    public void clear() {
+        buckets.clear();
+        bucketRanges.clear();
+    }
+
+    private static int toBucket(int coord) {
+        return Math.floorDiv(coord, BUCKET_SIZE);
+    }
+}
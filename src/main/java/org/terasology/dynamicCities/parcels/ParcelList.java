@@ -38,6 +38,9 @@ public class ParcelList implements Component {
 
     public List<DynParcel> parcels;
 
+    //Spatial lookup over parcels, not persisted and rebuilt lazily after loading
+    private transient ParcelGrid parcelGrid;
+
     public ParcelList() { }
     public ParcelList(int i) {
         builtUpRadius = 0;
@@ -48,6 +51,7 @@ public class ParcelList implements Component {
 
     public void addParcel(DynParcel parcel) {
         parcels.add(parcel);
+        getParcelGrid().add(parcel);
         String zone = parcel.getZone();
         if (areaPerZone.containsKey(zone)) {
             areaPerZone.put(zone, areaPerZone.get(zone) + parcel.getShape().area());
@@ -61,12 +65,14 @@ public class ParcelList implements Component {
     }
 
     public boolean isNotIntersecting(Rect2i rect) {
-        for (DynParcel spawnedParcels : parcels) {
-            if (spawnedParcels.getShape().overlaps(rect)) {
-               return false;
-            }
+        return !getParcelGrid().overlaps(rect);
+    }
+
+    private ParcelGrid getParcelGrid() {
+        if (parcelGrid == null || parcelGrid.size() != parcels.size()) {
+            parcelGrid = new ParcelGrid(parcels);
         }
-        return true;
+        return parcelGrid;
     }
 
     public ParcelList copy() {
@@ -15,11 +15,8 @@
  */
 package org.terasology.dynamicCities.rasterizer;
 
-import org.terasology.dynamicCities.facets.ResourceFacet;
-import org.terasology.dynamicCities.resource.Resource;
 import org.terasology.dynamicCities.resource.ResourceType;
 import org.terasology.math.geom.BaseVector3i;
-import org.terasology.math.geom.Vector2i;
 import org.terasology.registry.CoreRegistry;
 import org.terasology.world.block.Block;
 import org.terasology.world.block.BlockManager;
@@ -69,40 +66,37 @@ public abstract class CompatibleRasterizer implements WorldRasterizer {
     public void generateChunk(CoreChunk chunk, Region chunkRegion) {
     }
 
-    public void setBlock(CoreChunk chunk, Block block, BaseVector3i pos, ResourceFacet resourceFacet) {
+    public void setBlock(CoreChunk chunk, Block block, BaseVector3i pos, ResourceAccumulator resources) {
         chunk.setBlock(pos, block);
-        Resource resource = getResourceType(block);
-        if (resource.getType() != ResourceType.NULL) {
-            resourceFacet.addResource(resource, new Vector2i(pos.x(), pos.y()));
+        ResourceType type = getResourceType(block);
+        if (type != ResourceType.NULL) {
+            resources.add(type, pos.x(), pos.z());
         }
     }
 
-    public void setLiquid(CoreChunk chunk, LiquidData liquid, BaseVector3i pos, ResourceFacet resourceFacet) {
+    public void setLiquid(CoreChunk chunk, LiquidData liquid, BaseVector3i pos, ResourceAccumulator resources) {
         chunk.setLiquid(pos, liquid);
         if(liquid.getType() == LiquidType.WATER) {
-            Resource resource = new Resource(ResourceType.WATER);
-            if (resource.getType() != ResourceType.NULL) {
-                resourceFacet.addResource(resource, new Vector2i(pos.x(), pos.y()));
-            }
+            resources.add(ResourceType.WATER, pos.x(), pos.z());
         }
 
     }
 
-    public Resource getResourceType(Block block) {
+    public ResourceType getResourceType(Block block) {
         if (block == stone || block == mantlestone || block == hardStone) {
-            return new Resource(ResourceType.STONE);
+            return ResourceType.STONE;
         }
         if (block == water) {
-            return new Resource(ResourceType.WATER);
+            return ResourceType.WATER;
         }
         if (block == grass) {
-            return new Resource(ResourceType.GRASS);
+            return ResourceType.GRASS;
         }
         if (block == oakTrunk || block == pineTrunk || block == birchTrunk) {
-            return new Resource(ResourceType.WOOD);
+            return ResourceType.WOOD;
         }
 
-        return new Resource(ResourceType.NULL);
+        return ResourceType.NULL;
     }
 
 }
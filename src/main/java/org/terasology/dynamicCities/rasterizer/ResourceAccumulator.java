@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.rasterizer;
+
+import org.terasology.dynamicCities.facets.ResourceFacet;
+import org.terasology.dynamicCities.resource.ResourceType;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.Arrays;
+
+/**
+ * Counts the resources placed while rasterizing one chunk, per block column. The counts are handed to the
+ * {@link ResourceFacet} once the chunk is done, so the facet's grid lookup runs per column instead of per block.
+ */
+public class ResourceAccumulator {
+
+    private final int[] counts = new int[ChunkConstants.SIZE_X * ChunkConstants.SIZE_Z * ResourceFacet.TYPE_COUNT];
+    private boolean empty = true;
+
+    /**
+     * @param x chunk relative x coordinate
+     * @param z chunk relative z coordinate
+     */
+    public void add(ResourceType type, int x, int z) {
+        counts[(x + z * ChunkConstants.SIZE_X) * ResourceFacet.TYPE_COUNT + type.ordinal()]++;
+        empty = false;
+    }
+
+    /**
+     * Adds the counted resources to the facet and resets the counts.
+     */
+    public void flush(ResourceFacet resourceFacet) {
+        if (empty) {
+            return;
+        }
+        ResourceType[] types = ResourceType.values();
+        for (int column = 0; column < ChunkConstants.SIZE_X * ChunkConstants.SIZE_Z; column++) {
+            int offset = column * ResourceFacet.TYPE_COUNT;
+            for (int type = 0; type < ResourceFacet.TYPE_COUNT; type++) {
+                int count = counts[offset + type];
+                if (count != 0) {
+                    resourceFacet.addResource(types[type], count, column % ChunkConstants.SIZE_X, column / ChunkConstants.SIZE_X);
+                }
+            }
+        }
+        Arrays.fill(counts, 0);
+        empty = true;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.region;
+
+import org.terasology.math.geom.Rect2i;
+
+/**
+ * Region buildability over a fixed part of the region grid, copied from {@link RegionEntityManager}.
+ * Holds no entity references, so it can be read from any thread.
+ */
+public class BuildabilitySnapshot {
+
+    private final int minX;
+    private final int minZ;
+    private final int sizeX;
+    private final int sizeZ;
+    private final byte[] buildability;
+
+    /**
+     * Creates a snapshot over the given region grid coordinates in which every region is unknown.
+     */
+    public BuildabilitySnapshot(int minX, int minZ, int sizeX, int sizeZ) {
+        this.minX = minX;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeZ = sizeZ;
+        buildability = new byte[sizeX * sizeZ];
+    }
+
+    public void set(int regionX, int regionZ, byte value) {
+        buildability[(regionX - minX) + (regionZ - minZ) * sizeX] = value;
+    }
+
+    /**
+     * Same rules as {@link RegionEntityManager#isAreaBuildable(Rect2i)}. Regions outside the snapshot count as not loaded.
+     */
+    public boolean isAreaBuildable(Rect2i area) {
+        if (area.isEmpty()) {
+            return false;
+        }
+        int x0 = Math.max(RegionIndex.toRegionCoord(area.minX()) - minX, 0);
+        int x1 = Math.min(RegionIndex.toRegionCoord(area.maxX()) - minX, sizeX - 1);
+        int z0 = Math.max(RegionIndex.toRegionCoord(area.minY()) - minZ, 0);
+        int z1 = Math.min(RegionIndex.toRegionCoord(area.maxY()) - minZ, sizeZ - 1);
+        boolean foundRegion = false;
+        for (int z = z0; z <= z1; z++) {
+            for (int x = x0; x <= x1; x++) {
+                byte value = buildability[x + z * sizeX];
+                if (value == RegionIndex.UNBUILDABLE) {
+                    return false;
+                }
+                foundRegion |= value == RegionIndex.BUILDABLE;
+            }
+        }
+        return foundRegion;
+    }
+
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    public int getSizeZ() {
+        return sizeZ;
+    }
+}
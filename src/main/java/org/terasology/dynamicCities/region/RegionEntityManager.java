@@ -26,12 +26,15 @@ import org.terasology.dynamicCities.region.components.RoughnessFacetComponent;
 import org.terasology.dynamicCities.region.components.UnassignedRegionComponent;
 import org.terasology.dynamicCities.region.components.UnregisteredRegionComponent;
 import org.terasology.dynamicCities.region.events.AssignRegionEvent;
+import org.terasology.dynamicCities.resource.ResourceType;
+import org.terasology.dynamicCities.settlements.SettlementConstants;
 import org.terasology.dynamicCities.settlements.SettlementEntityManager;
 import org.terasology.dynamicCities.sites.SiteComponent;
 import org.terasology.dynamicCities.utilities.Toolbox;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.entitySystem.entity.lifecycleEvents.OnChangedComponent;
 import org.terasology.entitySystem.event.ReceiveEvent;
 import org.terasology.entitySystem.systems.BaseComponentSystem;
 import org.terasology.entitySystem.systems.RegisterMode;
@@ -45,14 +48,18 @@ import org.terasology.math.TeraMath;
 import org.terasology.math.geom.BaseVector2i;
 import org.terasology.math.geom.Rect2i;
 import org.terasology.math.geom.Vector2i;
+import org.terasology.math.geom.Vector3f;
 import org.terasology.registry.In;
 import org.terasology.registry.Share;
 import org.terasology.rendering.nui.Color;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 @Share(value = RegionEntityManager.class)
 @RegisterSystem(RegisterMode.AUTHORITY)
@@ -66,6 +73,7 @@ public class RegionEntityManager extends BaseComponentSystem {
 
     private RegionEntitiesComponent regionEntitiesComponent;
     private EntityRef regionStoreEntity;
+    private RegionIndex regionIndex;
 
 
     private final int gridSize = 96;
@@ -80,12 +88,15 @@ public class RegionEntityManager extends BaseComponentSystem {
             if (regionStore.hasComponent(RegionMainStoreComponent.class)) {
                 regionStoreEntity = regionStore;
                 regionEntitiesComponent = regionStore.getComponent(RegionEntitiesComponent.class);
+                regionIndex = new RegionIndex(gridSize);
+                regionIndex.rebuild(regionEntitiesComponent);
                 return;
             }
         }
         regionEntitiesComponent = new RegionEntitiesComponent(gridSize);
         regionStoreEntity = entityManager.create(regionEntitiesComponent, new RegionMainStoreComponent());
         regionStoreEntity.setAlwaysRelevant(true);
+        regionIndex = new RegionIndex(gridSize);
     }
 
     @ReceiveEvent(components = {UnregisteredRegionComponent.class, LocationComponent.class, RoughnessFacetComponent.class, ResourceFacetComponent.class})
@@ -96,6 +107,15 @@ public class RegionEntityManager extends BaseComponentSystem {
 
     }
 
+    /**
+     * The cached buildability is derived from the facet components, so drop it whenever one of them is replaced.
+     */
+    @ReceiveEvent(components = {LocationComponent.class, RoughnessFacetComponent.class, ResourceFacetComponent.class})
+    public void onRegionFacetChanged(OnChangedComponent event, EntityRef region) {
+        Vector2i position = getRegionPosition(region);
+        regionIndex.invalidateBuildability(position.x(), position.y());
+    }
+
     @ReceiveEvent(components = {UnassignedRegionComponent.class})
     public void assignRegion(AssignRegionEvent event, EntityRef region) {
         region.addComponent(new ActiveRegionComponent());
@@ -110,34 +130,44 @@ public class RegionEntityManager extends BaseComponentSystem {
     public void add(EntityRef region) {
         if (region != null) {
             Map<String, EntityRef> regionEntities = regionEntitiesComponent.regionEntities;
-            LocationComponent location = region.getComponent(LocationComponent.class);
-            Vector2i position = new Vector2i(location.getWorldPosition().x(), location.getWorldPosition().z());
+            Vector2i position = getRegionPosition(region);
             addCell(position);
             regionEntities.put(position.toString(), region);
+            regionIndex.putRegion(position.x(), position.y(), region);
+            regionIndex.setBuildabilityAtGrid(RegionIndex.toRegionCoord(position.x()), RegionIndex.toRegionCoord(position.y()),
+                    computeBuildability(region));
             regionStoreEntity.saveComponent(regionEntitiesComponent);
         }
     }
 
     public void addDeleted(EntityRef region) {
         if (region != null) {
-            LocationComponent location = region.getComponent(LocationComponent.class);
-            Vector2i position = new Vector2i(location.getWorldPosition().x(), location.getWorldPosition().z());
-            addCell(position);
+            addCell(getRegionPosition(region));
         }
     }
 
+    /**
+     * @return the position a region is registered under, shared by every lookup into the region index
+     */
+    private static Vector2i getRegionPosition(EntityRef region) {
+        Vector3f worldPosition = region.getComponent(LocationComponent.class).getWorldPosition();
+        return new Vector2i(worldPosition.x(), worldPosition.z());
+    }
+
     public EntityRef get(Vector2i position) {
-        Map<String, EntityRef> regionEntities = regionEntitiesComponent.regionEntities;
-        return regionEntities.get(position.toString());
+        EntityRef region = regionIndex.getRegion(position.x(), position.y());
+        return (region != null && isRegionCenter(position)) ? region : null;
     }
 
     public EntityRef getNearest(Vector2i position) {
-        Map<String, EntityRef> regionEntities = regionEntitiesComponent.regionEntities;
-        float x = position.x();
-        float y = position.y();
-        Vector2i regionPos = new Vector2i(Math.round((x - Math.signum(x) * 16) / 32) * 32 + Math.signum(x) * 16,
-                Math.round((y - Math.signum(y) * 16) / 32) * 32 + Math.signum(y) * 16);
-        return regionEntities.get(regionPos.toString());
+        return getNearest(position.x(), position.y());
+    }
+
+    /**
+     * @return the region entity whose 32x32 area contains the given world position, or null if it is not loaded
+     */
+    public EntityRef getNearest(int x, int z) {
+        return regionIndex.getRegion(x, z);
     }
 
     public EntityRef getNearest(String posString) {
@@ -145,6 +175,7 @@ public class RegionEntityManager extends BaseComponentSystem {
     }
 
     public void addCell(Vector2i position) {
+        regionIndex.addToCell(position.x(), position.y());
         String cellPos = getCellString(position);
         Map<String, Integer> cellGrid = regionEntitiesComponent.cellGrid;
         if (cellGrid.containsKey(cellPos)) {
@@ -155,6 +186,12 @@ public class RegionEntityManager extends BaseComponentSystem {
         }
     }
 
+    private boolean isRegionCenter(Vector2i position) {
+        int half = RegionIndex.REGION_SIZE / 2;
+        return Math.floorMod(position.x(), RegionIndex.REGION_SIZE) == half
+                && Math.floorMod(position.y(), RegionIndex.REGION_SIZE) == half;
+    }
+
     public String getCellString(Vector2i position) {
         float x = position.x();
         float y = position.y();
@@ -172,16 +209,11 @@ public class RegionEntityManager extends BaseComponentSystem {
     }
 
     public boolean cellIsLoaded(Vector2i position) {
-        Map<String, Integer> cellGrid =regionEntitiesComponent.cellGrid;
-        int cellSize = regionEntitiesComponent.cellSize;
-        return cellGrid.containsKey(getCellString(position)) && (cellGrid.get(getCellString(position)) == cellSize);
+        return regionIndex.getCellCount(position.x(), position.y()) == regionEntitiesComponent.cellSize;
     }
 
     public boolean cellIsLoaded(String posString) {
-        Map<String, Integer> cellGrid =regionEntitiesComponent.cellGrid;
-        int cellSize = regionEntitiesComponent.cellSize;
-        Vector2i position = Toolbox.stringToVector2i(posString);
-        return cellGrid.containsKey(getCellString(position)) && (cellGrid.get(getCellString(position)) == cellSize);
+        return cellIsLoaded(Toolbox.stringToVector2i(posString));
     }
 
     public List<EntityRef> getRegionsInCell(Vector2i position) {
@@ -268,6 +300,9 @@ public class RegionEntityManager extends BaseComponentSystem {
         List<String> processed = regionEntitiesComponent.processed;
         for (EntityRef region : getRegionsInCell(pos)) {
             if (!region.hasComponent(ActiveRegionComponent.class)) {
+                //Drop the cached buildability with the region, so the area counts as not loaded again
+                Vector2i position = getRegionPosition(region);
+                regionIndex.removeRegion(position.x(), position.y(), region);
                 region.destroy();
             }
         }
@@ -290,7 +325,7 @@ public class RegionEntityManager extends BaseComponentSystem {
         LocationComponent locationComponent = region.getComponent(LocationComponent.class);
         SiteComponent siteComponent = region.getComponent(SiteComponent.class);
         nT.text = "Roughness: "
-                + roughnessFacetComponent.meanDeviation + " Grass: " + resourceFacetComponent.getResourceSum("Grass")
+                + roughnessFacetComponent.meanDeviation + " Grass: " + resourceFacetComponent.getResourceSum(ResourceType.GRASS)
                 + locationComponent.getWorldPosition().toString();
         nT.yOffset = 10;
         nT.scale = 10;
@@ -328,18 +363,110 @@ public class RegionEntityManager extends BaseComponentSystem {
         }
     }
 
-    public List<EntityRef> getRegionsInArea(Rect2i area) {
-        List<EntityRef> result = new ArrayList<>();
-        for (BaseVector2i pos : area.contents()) {
-            EntityRef region = getNearest(new Vector2i(pos.x(), pos.y()));
+    /**
+     * @return the distinct loaded region entities overlapping the given area
+     */
+    public Set<EntityRef> getRegionsInArea(Rect2i area) {
+        Set<EntityRef> result = new LinkedHashSet<>();
+        forEachRegionInArea(area, result::add);
+        return result;
+    }
+
+    /**
+     * Checks the cached buildability flag of every loaded region overlapping the area.
+     * Regions that are not loaded are skipped, but at least one region has to be found.
+     */
+    public boolean isAreaBuildable(Rect2i area) {
+        if (area.isEmpty()) {
+            return false;
+        }
+        int minX = RegionIndex.toRegionCoord(area.minX());
+        int maxX = RegionIndex.toRegionCoord(area.maxX());
+        int minZ = RegionIndex.toRegionCoord(area.minY());
+        int maxZ = RegionIndex.toRegionCoord(area.maxY());
+        boolean foundRegion = false;
+        for (int z = minZ; z <= maxZ; z++) {
+            for (int x = minX; x <= maxX; x++) {
+                byte buildability = getBuildabilityAtGrid(x, z);
+                if (buildability == RegionIndex.UNBUILDABLE) {
+                    return false;
+                }
+                foundRegion |= buildability == RegionIndex.BUILDABLE;
+            }
+        }
+        return foundRegion;
+    }
+
+    /**
+     * Copies the buildability of every region overlapping the area, so it can be queried off the game thread.
+     */
+    public BuildabilitySnapshot snapshotBuildability(Rect2i area) {
+        int minX = RegionIndex.toRegionCoord(area.minX());
+        int minZ = RegionIndex.toRegionCoord(area.minY());
+        BuildabilitySnapshot snapshot = new BuildabilitySnapshot(minX, minZ,
+                RegionIndex.toRegionCoord(area.maxX()) - minX + 1, RegionIndex.toRegionCoord(area.maxY()) - minZ + 1);
+        for (int z = 0; z < snapshot.getSizeZ(); z++) {
+            for (int x = 0; x < snapshot.getSizeX(); x++) {
+                snapshot.set(minX + x, minZ + z, getBuildabilityAtGrid(minX + x, minZ + z));
+            }
+        }
+        return snapshot;
+    }
 
+    /**
+     * @return the cached buildability of the region, computed if needed, or BUILDABILITY_UNKNOWN if it is not loaded
+     */
+    private byte getBuildabilityAtGrid(int x, int z) {
+        byte buildability = regionIndex.getBuildabilityAtGrid(x, z);
+        if (buildability == RegionIndex.BUILDABILITY_UNKNOWN) {
+            EntityRef region = regionIndex.getRegionAtGrid(x, z);
             if (region == null || !region.isActive() || !region.exists()) {
-                logger.debug("Failed to get nearest region for " + pos.toString());
-            } else if (!result.contains(region)) {
-                result.add(region);
+                return RegionIndex.BUILDABILITY_UNKNOWN;
             }
+            buildability = computeBuildability(region);
+            regionIndex.setBuildabilityAtGrid(x, z, buildability);
         }
-        return result;
+        return buildability;
+    }
+
+    private byte computeBuildability(EntityRef region) {
+        RoughnessFacetComponent roughnessFacetComponent = region.getComponent(RoughnessFacetComponent.class);
+        ResourceFacetComponent resourceFacetComponent = region.getComponent(ResourceFacetComponent.class);
+        if (roughnessFacetComponent == null || resourceFacetComponent == null) {
+            logger.error("No RoughnessFacetComponent or ResourceFacetComponent found for region");
+            return RegionIndex.UNBUILDABLE;
+        }
+        if (roughnessFacetComponent.meanDeviation > SettlementConstants.MAX_BUILDABLE_ROUGHNESS
+                || resourceFacetComponent.getResourceSum(ResourceType.WATER) != 0) {
+            return RegionIndex.UNBUILDABLE;
+        }
+        return RegionIndex.BUILDABLE;
+    }
+
+    /**
+     * Visits every loaded region overlapping the given area once, stepping over the 32x32 region grid.
+     * Stops as soon as the visitor returns false.
+     * @return false if the visitor stopped the iteration, true otherwise
+     */
+    public boolean forEachRegionInArea(Rect2i area, Predicate<EntityRef> visitor) {
+        if (area.isEmpty()) {
+            return true;
+        }
+        int minX = RegionIndex.toRegionCoord(area.minX());
+        int maxX = RegionIndex.toRegionCoord(area.maxX());
+        int minZ = RegionIndex.toRegionCoord(area.minY());
+        int maxZ = RegionIndex.toRegionCoord(area.maxY());
+        for (int z = minZ; z <= maxZ; z++) {
+            for (int x = minX; x <= maxX; x++) {
+                EntityRef region = regionIndex.getRegionAtGrid(x, z);
+                if (region == null || !region.isActive() || !region.exists()) {
+                    logger.debug("Failed to get region at grid position ({}, {})", x, z);
+                } else if (!visitor.test(region)) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
  /*
     public List<EntityRef> getRegionsInArea(Rect2i area) {
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.region;
+
+import gnu.trove.map.TLongByteMap;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongByteHashMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import org.terasology.dynamicCities.region.components.RegionEntitiesComponent;
+import org.terasology.dynamicCities.utilities.CoordinateKeys;
+import org.terasology.entitySystem.entity.EntityRef;
+
+import java.util.Map;
+
+/**
+ * In-memory lookup of region entities and loaded cells, keyed by packed (x, z) grid coordinates.
+ * The String-keyed maps in {@link RegionEntitiesComponent} stay the persisted form; this index is rebuilt from them
+ * on load and kept in sync by {@link RegionEntityManager}.
+ */
+public class RegionIndex {
+
+    public static final int REGION_SIZE = 32;
+
+    public static final byte BUILDABILITY_UNKNOWN = 0;
+    public static final byte BUILDABLE = 1;
+    public static final byte UNBUILDABLE = 2;
+
+    private final int cellGridSize;
+    private final TLongObjectMap<EntityRef> regions = new TLongObjectHashMap<>();
+    private final TLongIntMap cellCounts = new TLongIntHashMap();
+    //Missing entries read as BUILDABILITY_UNKNOWN
+    private final TLongByteMap buildability = new TLongByteHashMap();
+
+    public RegionIndex(int cellGridSize) {
+        this.cellGridSize = cellGridSize;
+    }
+
+    public void rebuild(RegionEntitiesComponent component) {
+        regions.clear();
+        cellCounts.clear();
+        buildability.clear();
+        for (Map.Entry<String, EntityRef> entry : component.regionEntities.entrySet()) {
+            long pos = CoordinateKeys.parse2i(entry.getKey());
+            regions.put(regionKey(CoordinateKeys.unpackX(pos), CoordinateKeys.unpackY(pos)), entry.getValue());
+        }
+        for (Map.Entry<String, Integer> entry : component.cellGrid.entrySet()) {
+            long pos = CoordinateKeys.parse2i(entry.getKey());
+            cellCounts.put(cellKey(CoordinateKeys.unpackX(pos), CoordinateKeys.unpackY(pos)), entry.getValue());
+        }
+    }
+
+    public void putRegion(int x, int z, EntityRef region) {
+        regions.put(regionKey(x, z), region);
+    }
+
+    /**
+     * @return the region entity covering the given world position, or null if none is registered
+     */
+    public EntityRef getRegion(int x, int z) {
+        return regions.get(regionKey(x, z));
+    }
+
+    /**
+     * @return the region entity at the given region grid coordinates, see {@link #toRegionCoord(int)}
+     */
+    public EntityRef getRegionAtGrid(int regionX, int regionZ) {
+        return regions.get(CoordinateKeys.pack(regionX, regionZ));
+    }
+
+    public byte getBuildabilityAtGrid(int regionX, int regionZ) {
+        return buildability.get(CoordinateKeys.pack(regionX, regionZ));
+    }
+
+    public void setBuildabilityAtGrid(int regionX, int regionZ, byte value) {
+        buildability.put(CoordinateKeys.pack(regionX, regionZ), value);
+    }
+
+    /**
+     * Forgets the region and its cached buildability, if the given entity is still the one registered there.
+     */
+    public void removeRegion(int x, int z, EntityRef region) {
+        long key = regionKey(x, z);
+        if (region.equals(regions.get(key))) {
+            regions.remove(key);
+            buildability.remove(key);
+        }
+    }
+
+    public void invalidateBuildability(int x, int z) {
+        buildability.remove(regionKey(x, z));
+    }
+
+    public int addToCell(int x, int z) {
+        return cellCounts.adjustOrPutValue(cellKey(x, z), 1, 1);
+    }
+
+    public int getCellCount(int x, int z) {
+        return cellCounts.get(cellKey(x, z));
+    }
+
+    public int size() {
+        return regions.size();
+    }
+
+    public static int toRegionCoord(int worldCoord) {
+        return Math.floorDiv(worldCoord, REGION_SIZE);
+    }
+
+    /**
+     * Same rounding as {@code Math.round(worldCoord / (float) cellGridSize)}, done in integer arithmetic.
+     */
+    public int toCellCoord(int worldCoord) {
+        return Math.floorDiv(worldCoord + cellGridSize / 2, cellGridSize);
+    }
+
+    private long regionKey(int x, int z) {
+        return CoordinateKeys.pack(toRegionCoord(x), toRegionCoord(z));
+    }
+
+    private long cellKey(int x, int z) {
+        return CoordinateKeys.pack(toCellCoord(x), toCellCoord(z));
+    }
+}
@@ -16,9 +16,6 @@
 package org.terasology.dynamicCities.region;
 
 import org.terasology.dynamicCities.facets.RoughnessFacet;
-import org.terasology.math.geom.BaseVector2i;
-import org.terasology.math.geom.Rect2i;
-import org.terasology.math.geom.Vector2i;
 import org.terasology.world.generation.Border3D;
 import org.terasology.world.generation.Facet;
 import org.terasology.world.generation.FacetProvider;
@@ -53,16 +50,7 @@ public class RoughnessProvider implements FacetProvider {
 
         SeaLevelFacet seaLevelFacet = region.getRegionFacet(SeaLevelFacet.class);
         SurfaceHeightFacet surfaceHeightFacet = region.getRegionFacet(SurfaceHeightFacet.class);
-        Rect2i processRegion = facet.getGridWorldRegion();
-
-        for (BaseVector2i pos : processRegion.contents()) {
-
-            if(surfaceHeightFacet.getWorld(pos) > seaLevelFacet.getSeaLevel()) {
-                facet.calcRoughness(new Vector2i(pos.x(), pos.y()), surfaceHeightFacet);
-            } else {
-                facet.setWorld(pos, -1000);
-            }
-        }
+        facet.calcRoughness(surfaceHeightFacet, seaLevelFacet.getSeaLevel());
 
         region.setRegionFacet(RoughnessFacet.class, facet);
     }
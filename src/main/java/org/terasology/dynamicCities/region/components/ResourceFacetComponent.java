@@ -19,13 +19,15 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import org.terasology.dynamicCities.facets.ResourceFacet;
 import org.terasology.dynamicCities.resource.Resource;
+import org.terasology.dynamicCities.resource.ResourceType;
+import org.terasology.dynamicCities.utilities.GridIndex;
+import org.terasology.dynamicCities.utilities.LazyGridIndex;
 import org.terasology.entitySystem.Component;
 import org.terasology.math.geom.BaseVector2i;
 import org.terasology.math.geom.Rect2i;
 import org.terasology.math.geom.Vector2i;
 import org.terasology.reflection.MappedContainer;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -43,8 +45,12 @@ public final class ResourceFacetComponent implements Component {
     public int gridSize;
     public Vector2i center = new Vector2i();
 
-    
+    //String-keyed storage of older saves, moved into amounts on first access
     public List<Map<String, Resource>> data = Lists.newArrayList();
+    //ResourceFacet.TYPE_COUNT amounts per grid cell, indexed by the ResourceType ordinal
+    public int[] amounts = new int[0];
+    private transient int[] totals;
+    private final transient LazyGridIndex gridIndex = new LazyGridIndex();
 
 
     public ResourceFacetComponent() { }
@@ -57,11 +63,7 @@ public final class ResourceFacetComponent implements Component {
         gridRelativeRegion = copyRect2i(resourceFacet.getGridRelativeRegion());
         gridSize = resourceFacet.getGridSize();
         center = new Vector2i(resourceFacet.getCenter());
-        for (int i = 0; i < resourceFacet.getInternal().length; i++) {
-            HashMap<String, Resource> map = new HashMap<>();
-            map.putAll(resourceFacet.getInternal()[i]);
-            data.add(i, map);
-        }
+        amounts = resourceFacet.getInternal().clone();
     }
 
 
@@ -69,14 +71,20 @@ public final class ResourceFacetComponent implements Component {
         return Rect2i.createFromMinAndMax(value.minX(), value.minY(), value.maxX(), value.maxY());
     }
 
-    public int getResourceSum(String resourceType) {
-        int sum = 0;
-        for (Map<String, Resource> map : data) {
-            if (map.containsKey(resourceType)) {
-                sum += map.get(resourceType).amount;
+    public int getResourceSum(ResourceType type) {
+        if (totals == null) {
+            migrate();
+            totals = new int[ResourceFacet.TYPE_COUNT];
+            for (int i = 0; i < amounts.length; i++) {
+                totals[i % ResourceFacet.TYPE_COUNT] += amounts[i];
             }
         }
-        return sum;
+        return totals[type.ordinal()];
+    }
+
+    public int getResourceSum(String resourceType) {
+        ResourceType type = ResourceType.fromString(resourceType);
+        return type == null ? 0 : getResourceSum(type);
     }
 
     /**
@@ -90,18 +98,7 @@ public final class ResourceFacetComponent implements Component {
     }
 
     public Vector2i getWorldPoint(int x, int y) {
-        if (!gridWorldRegion.contains(x, y)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, y, gridWorldRegion.toString()));
-        }
-        int xRelative = x - center.x();
-        int yRelative = y - center.y();
-        int xNew = center.x() + Math.round((float) xRelative * gridSize);
-        int yNew = center.y() + Math.round((float) yRelative * gridSize);
-        Vector2i gridPoint = new Vector2i(xNew, yNew);
-        if (!worldRegion.contains(gridPoint)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", xNew, yNew, worldRegion.toString()));
-        }
-        return gridPoint;
+        return getGridIndex().worldPoint(x, y);
     }
 
     public Vector2i getRelativeGridPoint(Vector2i worldPoint) {
@@ -109,16 +106,7 @@ public final class ResourceFacetComponent implements Component {
     }
 
     public Vector2i getRelativeGridPoint(int x, int y) {
-        if (!relativeRegion.contains(x, y)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, y, relativeRegion.toString()));
-        }
-        int xNew = Math.round((float) x / gridSize);
-        int yNew = Math.round((float) y / gridSize);
-        Vector2i gridPoint = new Vector2i(xNew, yNew);
-        if (!gridRelativeRegion.contains(gridPoint)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", xNew, yNew, gridRelativeRegion.toString()));
-        }
-        return gridPoint;
+        return getGridIndex().relativeGridPoint(x, y);
     }
 
     public Vector2i getWorldGridPoint(Vector2i worldPoint) {
@@ -126,18 +114,7 @@ public final class ResourceFacetComponent implements Component {
     }
 
     public Vector2i getWorldGridPoint(int x, int y) {
-        if (!worldRegion.contains(x, y)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, y, worldRegion.toString()));
-        }
-        int xRelative = x - center.x();
-        int yRelative = y - center.y();
-        int xNew = center.x() + Math.round((float) xRelative / gridSize);
-        int yNew = center.y() + Math.round((float) yRelative / gridSize);
-        Vector2i gridPoint = new Vector2i(xNew, yNew);
-        if (!gridWorldRegion.contains(gridPoint)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", xNew, yNew, gridWorldRegion.toString()));
-        }
-        return gridPoint;
+        return getGridIndex().worldGridPoint(x, y);
     }
 
     public int getGridSize() {
@@ -148,18 +125,16 @@ public final class ResourceFacetComponent implements Component {
         return center;
     }
 
+    public GridIndex getGridIndex() {
+        return gridIndex.get(worldRegion, relativeRegion, gridWorldRegion, gridRelativeRegion, center, gridSize);
+    }
+
     protected int getRelativeGridIndex(int x, int z) {
-        if (!gridRelativeRegion.contains(x, z)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, z, gridWorldRegion.toString()));
-        }
-        return x - gridRelativeRegion.minX() + gridRelativeRegion.sizeX() * (z - gridRelativeRegion.minY());
+        return getGridIndex().relativeGridIndex(x, z);
     }
 
     protected int getWorldGridIndex(int x, int z) {
-        if (!gridWorldRegion.contains(x, z)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, z, gridWorldRegion.toString()));
-        }
-        return x - gridWorldRegion.minX() + gridWorldRegion.sizeX() * (z - gridWorldRegion.minY());
+        return getGridIndex().worldGridIndex(x, z);
     }
 
     public Rect2i getGridWorldRegion() {
@@ -170,54 +145,53 @@ public final class ResourceFacetComponent implements Component {
         return gridRelativeRegion;
     }
 
-    public Map<String, Resource> get(int x, int y) {
-        BaseVector2i gridPos = getRelativeGridPoint(x, y);
-        return data.get(getRelativeGridIndex(gridPos.x(), gridPos.y()));
-    }
-
-    public Map<String, Resource> get(BaseVector2i pos) {
-        BaseVector2i gridPos = getRelativeGridPoint(pos.x(), pos.y());
-        return get(gridPos.x(), gridPos.y());
+    public int get(int x, int y, ResourceType type) {
+        migrate();
+        return amounts[getGridIndex().relativeIndex(x, y) * ResourceFacet.TYPE_COUNT + type.ordinal()];
     }
 
-    public Map<String, Resource> getWorld(int x, int y) {
-        BaseVector2i gridPos = getWorldGridPoint(x, y);
-        return data.get(getWorldGridIndex(gridPos.x(), gridPos.y()));
+    public int get(BaseVector2i pos, ResourceType type) {
+        return get(pos.x(), pos.y(), type);
     }
 
-    public Map<String, Resource> getWorld(BaseVector2i pos) {
-        BaseVector2i gridPos = getWorldGridPoint(pos.x(), pos.y());
-        return getWorld(gridPos.x(), gridPos.y());
+    public int getWorld(int x, int y, ResourceType type) {
+        migrate();
+        return amounts[getGridIndex().worldIndex(x, y) * ResourceFacet.TYPE_COUNT + type.ordinal()];
     }
 
-    public List<Map<String, Resource>> getInternal() {
-        return data;
+    public int getWorld(BaseVector2i pos, ResourceType type) {
+        return getWorld(pos.x(), pos.y(), type);
     }
 
-    public void set(int x, int y, Map<String, Resource> value) {
-        BaseVector2i gridPos = getRelativeGridPoint(x, y);
-        data.set(getRelativeGridIndex(gridPos.x(), gridPos.y()), value);
+    public int[] getInternal() {
+        migrate();
+        return amounts;
     }
 
-    public void set(BaseVector2i pos, Map<String, Resource> value) {
-        BaseVector2i gridPos = getRelativeGridPoint(pos.x(), pos.y());
-        set(pos.x(), pos.y(), value);
+    public void set(int[] newData) {
+        migrate();
+        Preconditions.checkArgument(newData.length == amounts.length, "New data must have same length as existing");
+        System.arraycopy(newData, 0, amounts, 0, newData.length);
+        totals = null;
     }
 
-    public void setWorld(int x, int y, Map<String, Resource> value) {
-        BaseVector2i gridPos = getWorldGridPoint(x, y);
-        data.set(getWorldGridIndex(gridPos.x(), gridPos.y()), value);
-    }
-
-    public void setWorld(BaseVector2i pos, Map<String, Resource> value) {
-        BaseVector2i gridPos = getWorldGridPoint(pos.x(), pos.y());
-        setWorld(gridPos.x(), gridPos.y(), value);
-    }
-
-    public void set(List<Map<String, Resource>> newData) {
-        Preconditions.checkArgument(newData.size() == data.size(), "New data must have same length as existing");
+    /**
+     * Moves the per cell maps of an older save into the amounts array.
+     */
+    private void migrate() {
+        if (data.isEmpty()) {
+            return;
+        }
+        amounts = new int[data.size() * ResourceFacet.TYPE_COUNT];
+        for (int i = 0; i < data.size(); i++) {
+            for (Resource resource : data.get(i).values()) {
+                if (resource.getType() != null) {
+                    amounts[i * ResourceFacet.TYPE_COUNT + resource.getType().ordinal()] += resource.amount;
+                }
+            }
+        }
         data.clear();
-        data.addAll(newData);
+        totals = null;
     }
 
 }
@@ -18,6 +18,8 @@ package org.terasology.dynamicCities.region.components;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import org.terasology.dynamicCities.facets.RoughnessFacet;
+import org.terasology.dynamicCities.utilities.GridIndex;
+import org.terasology.dynamicCities.utilities.LazyGridIndex;
 import org.terasology.entitySystem.Component;
 import org.terasology.math.geom.BaseVector2i;
 import org.terasology.math.geom.Rect2i;
@@ -35,8 +37,12 @@ public final class RoughnessFacetComponent implements Component {
     public Rect2i gridRelativeRegion = Rect2i.EMPTY;
     public int gridSize;
     public Vector2i center = new Vector2i();
+    //Boxed storage of older saves, moved into deviations on first access
     public List<Float> data = Lists.newArrayList();
+    //One value per cell of gridWorldRegion, row by row
+    public float[] deviations = new float[0];
     public float meanDeviation;
+    private final transient LazyGridIndex gridIndex = new LazyGridIndex();
 
     public RoughnessFacetComponent() { }
 
@@ -48,9 +54,7 @@ public final class RoughnessFacetComponent implements Component {
         gridRelativeRegion = copyRect2i(roughnessFacet.getGridRelativeRegion());
         gridSize = roughnessFacet.getGridSize();
         center = new Vector2i(roughnessFacet.getCenter());
-        for (int i = 0; i < roughnessFacet.getInternal().length; i++) {
-            data.add(i, roughnessFacet.getInternal()[i]);
-        }
+        deviations = roughnessFacet.getInternal().clone();
         meanDeviation = roughnessFacet.getMeanDeviation();
     }
 
@@ -66,18 +70,7 @@ public final class RoughnessFacetComponent implements Component {
     }
 
     public Vector2i getWorldPoint(int x, int y) {
-        if (!gridWorldRegion.contains(x, y)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, y, gridWorldRegion.toString()));
-        }
-        int xRelative = x - center.x();
-        int yRelative = y - center.y();
-        int xNew = center.x() + Math.round((float) xRelative * gridSize);
-        int yNew = center.y() + Math.round((float) yRelative * gridSize);
-        Vector2i gridPoint = new Vector2i(xNew, yNew);
-        if (!worldRegion.contains(gridPoint)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", xNew, yNew, worldRegion.toString()));
-        }
-        return gridPoint;
+        return getGridIndex().worldPoint(x, y);
     }
 
     public Vector2i getRelativeGridPoint(Vector2i worldPoint) {
@@ -85,16 +78,7 @@ public final class RoughnessFacetComponent implements Component {
     }
 
     public Vector2i getRelativeGridPoint(int x, int y) {
-        if (!relativeRegion.contains(x, y)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, y, relativeRegion.toString()));
-        }
-        int xNew = Math.round((float) x / gridSize);
-        int yNew = Math.round((float) y / gridSize);
-        Vector2i gridPoint = new Vector2i(xNew, yNew);
-        if (!gridRelativeRegion.contains(gridPoint)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", xNew, yNew, gridRelativeRegion.toString()));
-        }
-        return gridPoint;
+        return getGridIndex().relativeGridPoint(x, y);
     }
 
     public Vector2i getWorldGridPoint(Vector2i worldPoint) {
@@ -102,18 +86,7 @@ public final class RoughnessFacetComponent implements Component {
     }
 
     public Vector2i getWorldGridPoint(int x, int y) {
-        if (!worldRegion.contains(x, y)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, y, worldRegion.toString()));
-        }
-        int xRelative = x - center.x();
-        int yRelative = y - center.y();
-        int xNew = center.x() + Math.round((float) xRelative / gridSize);
-        int yNew = center.y() + Math.round((float) yRelative / gridSize);
-        Vector2i gridPoint = new Vector2i(xNew, yNew);
-        if (!gridWorldRegion.contains(gridPoint)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", xNew, yNew, gridWorldRegion.toString()));
-        }
-        return gridPoint;
+        return getGridIndex().worldGridPoint(x, y);
     }
 
     public int getGridSize() {
@@ -124,18 +97,16 @@ public final class RoughnessFacetComponent implements Component {
         return center;
     }
 
+    public GridIndex getGridIndex() {
+        return gridIndex.get(worldRegion, relativeRegion, gridWorldRegion, gridRelativeRegion, center, gridSize);
+    }
+
     protected int getRelativeGridIndex(int x, int z) {
-        if (!gridRelativeRegion.contains(x, z)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, z, gridWorldRegion.toString()));
-        }
-        return x - gridRelativeRegion.minX() + gridRelativeRegion.sizeX() * (z - gridRelativeRegion.minY());
+        return getGridIndex().relativeGridIndex(x, z);
     }
 
     protected int getWorldGridIndex(int x, int z) {
-        if (!gridWorldRegion.contains(x, z)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, z, gridWorldRegion.toString()));
-        }
-        return x - gridWorldRegion.minX() + gridWorldRegion.sizeX() * (z - gridWorldRegion.minY());
+        return getGridIndex().worldGridIndex(x, z);
     }
 
     public Rect2i getGridWorldRegion() {
@@ -146,54 +117,73 @@ public final class RoughnessFacetComponent implements Component {
         return gridRelativeRegion;
     }
 
+    /**
+     * Reads a cell without any bounds checks, for callers iterating over {@link #getGridWorldRegion()}.
+     */
+    public float getAtWorldGrid(int gridX, int gridY) {
+        migrate();
+        return deviations[getGridIndex().uncheckedWorldGridIndex(gridX, gridY)];
+    }
+
     public float get(int x, int y) {
-        BaseVector2i gridPos = getRelativeGridPoint(x, y);
-        return data.get(getRelativeGridIndex(gridPos.x(), gridPos.y()));
+        migrate();
+        return deviations[getGridIndex().relativeIndex(x, y)];
     }
 
     public float get(BaseVector2i pos) {
-        BaseVector2i gridPos = getRelativeGridPoint(pos.x(), pos.y());
-        return get(gridPos.x(), gridPos.y());
+        return get(pos.x(), pos.y());
     }
 
     public float getWorld(int x, int y) {
-        BaseVector2i gridPos = getWorldGridPoint(x, y);
-        return data.get(getWorldGridIndex(gridPos.x(), gridPos.y()));
+        migrate();
+        return deviations[getGridIndex().worldIndex(x, y)];
     }
 
     public float getWorld(BaseVector2i pos) {
-        BaseVector2i gridPos = getWorldGridPoint(pos.x(), pos.y());
-        return getWorld(gridPos.x(), gridPos.y());
+        return getWorld(pos.x(), pos.y());
     }
 
-    public List<Float> getInternal() {
-        return data;
+    public float[] getInternal() {
+        migrate();
+        return deviations;
     }
 
     public void set(int x, int y, float value) {
-        BaseVector2i gridPos = getRelativeGridPoint(x, y);
-        data.set(getRelativeGridIndex(gridPos.x(), gridPos.y()), value);
+        migrate();
+        deviations[getGridIndex().relativeIndex(x, y)] = value;
     }
 
     public void set(BaseVector2i pos, float value) {
-        BaseVector2i gridPos = getRelativeGridPoint(pos.x(), pos.y());
         set(pos.x(), pos.y(), value);
     }
 
     public void setWorld(int x, int y, float value) {
-        BaseVector2i gridPos = getWorldGridPoint(x, y);
-        data.set(getWorldGridIndex(gridPos.x(), gridPos.y()), value);
+        migrate();
+        deviations[getGridIndex().worldIndex(x, y)] = value;
     }
 
     public void setWorld(BaseVector2i pos, float value) {
-        BaseVector2i gridPos = getWorldGridPoint(pos.x(), pos.y());
-        setWorld(gridPos.x(), gridPos.y(), value);
+        setWorld(pos.x(), pos.y(), value);
     }
 
-    public void set(List<Float> newData) {
-        Preconditions.checkArgument(newData.size() == data.size(), "New data must have same length as existing");
+    public void set(float[] newData) {
+        migrate();
+        Preconditions.checkArgument(newData.length == deviations.length, "New data must have same length as existing");
+        System.arraycopy(newData, 0, deviations, 0, newData.length);
+    }
+
+    /**
+     * Moves the boxed values of an older save into the deviations array.
+     */
+    private void migrate() {
+        if (data.isEmpty()) {
+            return;
+        }
+        deviations = new float[data.size()];
+        for (int i = 0; i < deviations.length; i++) {
+            deviations[i] = data.get(i);
+        }
         data.clear();
-        data.addAll(newData);
     }
 
 }
@@ -16,12 +16,15 @@
 package org.terasology.dynamicCities.region.components;
 
 import com.google.common.collect.Maps;
-import org.terasology.dynamicCities.utilities.Toolbox;
-import org.terasology.dynamicCities.world.trees.RecursiveTreeGeneratorLSystem;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.dynamicCities.utilities.CoordinateKeys;
+import org.terasology.dynamicCities.world.trees.AbstractTreeGenerator;
 import org.terasology.dynamicCities.world.trees.TreeFacet;
 import org.terasology.dynamicCities.world.trees.TreeGenerator;
-import org.terasology.dynamicCities.world.trees.TreeGeneratorCactus;
-import org.terasology.dynamicCities.world.trees.TreeGeneratorLSystem;
+import org.terasology.dynamicCities.world.trees.TreeSpecies;
 import org.terasology.entitySystem.Component;
 import org.terasology.math.Region3i;
 import org.terasology.math.geom.BaseVector3i;
@@ -29,15 +32,23 @@ import org.terasology.math.geom.Rect2i;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.reflection.MappedContainer;
 
+import java.util.Arrays;
 import java.util.Map;
 
 @MappedContainer
 public final class TreeFacetComponent implements Component {
 
+    private static final Logger logger = LoggerFactory.getLogger(TreeFacetComponent.class);
 
     public boolean privateToOwner = true;
 
+    //String-keyed storage of older saves, moved into treePositions on first access
     public final Map<String, TreeGeneratorContainer> relData = Maps.newLinkedHashMap();
+    //Relative x, y, z of every tree, sorted by x, then z, then y
+    public int[] treePositions = new int[0];
+    //TreeSpecies id and generation seed of every tree, in the order of treePositions
+    public int[] treeSpecies = new int[0];
+    public int[] treeSeeds = new int[0];
     public Region3i relativeRegion = Region3i.EMPTY;
     public Region3i worldRegion = Region3i.EMPTY;
     public Vector3i center = new Vector3i();
@@ -49,86 +60,163 @@ public final class TreeFacetComponent implements Component {
         relativeRegion = treeFacet.getRelativeRegion();
         worldRegion = treeFacet.getWorldRegion();
         center = new Vector3i(worldRegion.center());
-        for (Map.Entry<BaseVector3i, TreeGenerator> entry : treeFacet.getRelativeEntries().entrySet()) {
-
-            if (entry.getValue().getClass() == TreeGeneratorLSystem.class) {
-                TreeGeneratorLSystem treeGen = (TreeGeneratorLSystem) entry.getValue();
-                RecursiveTreeGeneratorLSystem recursiveTreeGeneratorLSystem = treeGen.getRecursiveGenerator();
-                TreeGeneratorContainer container = new TreeGeneratorContainer(treeGen.getLeafType().toString(),
-                        treeGen.getBarkType().toString(), treeGen.getInitialAxiom(), TreeGeneratorLSystem.class.toString(), recursiveTreeGeneratorLSystem.getMaxDepth(),
-                        recursiveTreeGeneratorLSystem.getAngle(), recursiveTreeGeneratorLSystem.getRuleSet());
-                relData.put(entry.getKey().toString(), container);
-            } else if (entry.getValue().getClass() == TreeGeneratorCactus.class) {
-                TreeGeneratorCactus treeGen = (TreeGeneratorCactus) entry.getValue();
-                TreeGeneratorContainer container = new TreeGeneratorContainer(treeGen.getCactusType().toString());
-                relData.put(entry.getKey().toString(), container);
+        Map<BaseVector3i, TreeGenerator> entries = treeFacet.getRelativeEntries();
+        TreeList trees = new TreeList(entries.size());
+        for (Map.Entry<BaseVector3i, TreeGenerator> entry : entries.entrySet()) {
+            TreeSpecies species = entry.getValue() instanceof AbstractTreeGenerator
+                    ? ((AbstractTreeGenerator) entry.getValue()).getSpecies() : null;
+            if (species != null) {
+                BaseVector3i pos = entry.getKey();
+                checkRelativeCoords(pos.x(), pos.y(), pos.z());
+                //Same seed as the TreeRasterizer uses
+                trees.add(pos.x(), pos.y(), pos.z(), species.getId(), 0);
             }
+        }
+        addAll(trees);
+    }
+
+    public int size() {
+        migrate();
+        return treeSpecies.length;
+    }
+
+    public int getWorldX(int index) {
+        return treePositions[index * 3] - relativeRegion.minX() + worldRegion.minX();
+    }
+
+    public int getWorldY(int index) {
+        return treePositions[index * 3 + 1] - relativeRegion.minY() + worldRegion.minY();
+    }
+
+    public int getWorldZ(int index) {
+        return treePositions[index * 3 + 2] - relativeRegion.minZ() + worldRegion.minZ();
+    }
 
+    public TreeSpecies getSpecies(int index) {
+        return TreeSpecies.byId(treeSpecies[index]);
+    }
 
+    public int getSeed(int index) {
+        return treeSeeds[index];
+    }
+
+    /**
+     * @param area world x/z area
+     * @return the ascending indices of the trees standing inside the area
+     */
+    public int[] getTreesInArea(Rect2i area) {
+        migrate();
+        TIntList result = new TIntArrayList();
+        if (area.isEmpty()) {
+            return result.toArray();
+        }
+        int minX = area.minX() - worldRegion.minX() + relativeRegion.minX();
+        int maxX = area.maxX() - worldRegion.minX() + relativeRegion.minX();
+        int minZ = area.minY() - worldRegion.minZ() + relativeRegion.minZ();
+        int maxZ = area.maxY() - worldRegion.minZ() + relativeRegion.minZ();
+        for (int i = lowerBound(minX, Integer.MIN_VALUE, Integer.MIN_VALUE); i < treeSpecies.length && treePositions[i * 3] <= maxX; i++) {
+            int z = treePositions[i * 3 + 2];
+            if (z >= minZ && z <= maxZ) {
+                result.add(i);
+            }
         }
+        return result.toArray();
     }
 
+    /**
+     * @param indices ascending tree indices, as returned by {@link #getTreesInArea(Rect2i)}
+     */
+    public void removeTrees(int[] indices) {
+        if (indices.length == 0) {
+            return;
+        }
+        int count = treeSpecies.length;
+        int remaining = count - indices.length;
+        int[] positions = new int[remaining * 3];
+        int[] species = new int[remaining];
+        int[] seeds = new int[remaining];
+        int next = 0;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (next < indices.length && indices[next] == i) {
+                next++;
+                continue;
+            }
+            System.arraycopy(treePositions, i * 3, positions, kept * 3, 3);
+            species[kept] = treeSpecies[i];
+            seeds[kept] = treeSeeds[i];
+            kept++;
+        }
+        treePositions = positions;
+        treeSpecies = species;
+        treeSeeds = seeds;
+    }
 
-    private Rect2i copyRect2i(Rect2i value) {
-        return Rect2i.createFromMinAndMax(value.minX(), value.minY(), value.maxX(), value.maxY());
+    public void clear() {
+        relData.clear();
+        treePositions = new int[0];
+        treeSpecies = new int[0];
+        treeSeeds = new int[0];
     }
-    
-    public TreeGeneratorContainer get(int x, int y, int z) {
-        return get(new Vector3i(x, y, z));
+
+    public TreeSpecies get(int x, int y, int z) {
+        checkRelativeCoords(x, y, z);
+        migrate();
+        int index = lowerBound(x, z, y);
+        return matches(index, x, y, z) ? getSpecies(index) : null;
     }
 
-    
-    public TreeGeneratorContainer get(BaseVector3i pos) {
-        checkRelativeCoords(pos.x(), pos.y(), pos.z());
 
-        return relData.get(pos.toString());
+    public TreeSpecies get(BaseVector3i pos) {
+        return get(pos.x(), pos.y(), pos.z());
     }
 
-    
-    public void set(int x, int y, int z, TreeGeneratorContainer value) {
-        set(new Vector3i(x, y, z), value);
+
+    public void set(int x, int y, int z, TreeSpecies species, int seed) {
+        checkRelativeCoords(x, y, z);
+        migrate();
+        insert(x, y, z, species.getId(), seed);
     }
 
-    
-    public void set(BaseVector3i pos, TreeGeneratorContainer value) {
-        checkRelativeCoords(pos.x(), pos.y(), pos.z());
 
-        relData.put(pos.toString(), value); // TODO: consider using an immutable vector here
+    public void set(BaseVector3i pos, TreeSpecies species, int seed) {
+        set(pos.x(), pos.y(), pos.z(), species, seed);
     }
 
-    
-    public TreeGeneratorContainer getWorld(BaseVector3i pos) {
+
+    public TreeSpecies getWorld(BaseVector3i pos) {
         return getWorld(pos.x(), pos.y(), pos.z());
     }
 
-    
-    public TreeGeneratorContainer getWorld(int x, int y, int z) {
+
+    public TreeSpecies getWorld(int x, int y, int z) {
         checkWorldCoords(x, y, z);
 
         Vector3i index = worldToRelative(x, y, z);
-        return relData.get(index.toString());
+        return get(index.x, index.y, index.z);
     }
 
-    
-    public void setWorld(BaseVector3i pos, TreeGeneratorContainer value) {
-        setWorld(pos.x(), pos.y(), pos.z(), value);
+
+    public void setWorld(BaseVector3i pos, TreeSpecies species, int seed) {
+        setWorld(pos.x(), pos.y(), pos.z(), species, seed);
     }
 
-    
-    public void setWorld(int x, int y, int z, TreeGeneratorContainer value) {
+
+    public void setWorld(int x, int y, int z, TreeSpecies species, int seed) {
         checkWorldCoords(x, y, z);
 
         Vector3i index = worldToRelative(x, y, z);
-        relData.put(index.toString(), value);
+        set(index.x, index.y, index.z, species, seed);
     }
 
     /**
-     * @return an unmodifiable view on the relative entries
+     * @return a <b>new</b> map with relative position entries
      */
-    public Map<BaseVector3i, TreeGeneratorContainer> getRelativeEntries() {
-        Map<BaseVector3i, TreeGeneratorContainer> vectorMap = Maps.newLinkedHashMap();
-        for (Map.Entry<String, TreeGeneratorContainer> entry : relData.entrySet()) {
-            vectorMap.put(Toolbox.stringToVector3i(entry.getKey()), entry.getValue());
+    public Map<BaseVector3i, TreeSpecies> getRelativeEntries() {
+        migrate();
+        Map<BaseVector3i, TreeSpecies> vectorMap = Maps.newLinkedHashMap();
+        for (int i = 0; i < treeSpecies.length; i++) {
+            vectorMap.put(new Vector3i(treePositions[i * 3], treePositions[i * 3 + 1], treePositions[i * 3 + 2]), getSpecies(i));
         }
         return vectorMap;
     }
@@ -136,18 +224,178 @@ public final class TreeFacetComponent implements Component {
     /**
      * @return a <b>new</b> map with world-based position entries
      */
-    public Map<BaseVector3i, TreeGeneratorContainer> getWorldEntries() {
+    public Map<BaseVector3i, TreeSpecies> getWorldEntries() {
+        migrate();
+        Map<BaseVector3i, TreeSpecies> result = Maps.newLinkedHashMap();
+        for (int i = 0; i < treeSpecies.length; i++) {
+            result.put(new Vector3i(getWorldX(i), getWorldY(i), getWorldZ(i)), getSpecies(i));
+        }
+        return result;
+    }
 
-        Map<BaseVector3i, TreeGeneratorContainer> result = Maps.newLinkedHashMap();
+    /**
+     * Moves the entries of an older save from relData into the sorted arrays.
+     * Those trees were generated with seed 0.
+     */
+    private void migrate() {
+        if (relData.isEmpty()) {
+            return;
+        }
+        Vector3i pos = new Vector3i();
+        TreeList trees = new TreeList(relData.size());
+        for (Map.Entry<String, TreeGeneratorContainer> entry : relData.entrySet()) {
+            TreeSpecies species = TreeSpecies.fromDefinition(entry.getValue());
+            if (species == null) {
+                logger.warn("Dropping tree at {} with an unknown generator {}", entry.getKey(), entry.getValue().className);
+                continue;
+            }
+            CoordinateKeys.parseVector3i(entry.getKey(), pos);
+            trees.add(pos.x, pos.y, pos.z, species.getId(), 0);
+        }
+        relData.clear();
+        addAll(trees);
+    }
 
-        for (Map.Entry<BaseVector3i, TreeGeneratorContainer> entry : getRelativeEntries().entrySet()) {
-            BaseVector3i relPos = entry.getKey();
-            BaseVector3i worldPos = relativeToWorld(relPos.x(), relPos.y(), relPos.z());
+    /**
+     * Merges many trees at once with a single sort, instead of shifting the arrays for every tree.
+     * Trees at an existing position replace it, like {@link #insert} does; the later of two new trees wins.
+     */
+    private void addAll(TreeList trees) {
+        int oldCount = treeSpecies.length;
+        int count = oldCount + trees.size;
+        int[] positions = Arrays.copyOf(treePositions, count * 3);
+        int[] speciesIds = Arrays.copyOf(treeSpecies, count);
+        int[] seeds = Arrays.copyOf(treeSeeds, count);
+        System.arraycopy(trees.positions, 0, positions, oldCount * 3, trees.size * 3);
+        System.arraycopy(trees.species, 0, speciesIds, oldCount, trees.size);
+        System.arraycopy(trees.seeds, 0, seeds, oldCount, trees.size);
+
+        //Stable sort by x, then z, then y, so the entry added last comes last among equal positions
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int cmp = Integer.compare(positions[a * 3], positions[b * 3]);
+            if (cmp == 0) {
+                cmp = Integer.compare(positions[a * 3 + 2], positions[b * 3 + 2]);
+            }
+            if (cmp == 0) {
+                cmp = Integer.compare(positions[a * 3 + 1], positions[b * 3 + 1]);
+            }
+            return cmp;
+        });
+
+        int[] sortedPositions = new int[count * 3];
+        int[] sortedSpecies = new int[count];
+        int[] sortedSeeds = new int[count];
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int from = order[i];
+            if (kept > 0 && sortedPositions[kept * 3 - 3] == positions[from * 3]
+                    && sortedPositions[kept * 3 - 2] == positions[from * 3 + 1]
+                    && sortedPositions[kept * 3 - 1] == positions[from * 3 + 2]) {
+                kept--;
+            }
+            System.arraycopy(positions, from * 3, sortedPositions, kept * 3, 3);
+            sortedSpecies[kept] = speciesIds[from];
+            sortedSeeds[kept] = seeds[from];
+            kept++;
+        }
+        treePositions = Arrays.copyOf(sortedPositions, kept * 3);
+        treeSpecies = Arrays.copyOf(sortedSpecies, kept);
+        treeSeeds = Arrays.copyOf(sortedSeeds, kept);
+    }
 
-            result.put(worldPos, entry.getValue());
+    /**
+     * Inserts a single tree, for incremental {@link #set} calls.
+     */
+    private void insert(int x, int y, int z, int species, int seed) {
+        int index = lowerBound(x, z, y);
+        if (matches(index, x, y, z)) {
+            treeSpecies[index] = species;
+            treeSeeds[index] = seed;
+            return;
         }
+        int count = treeSpecies.length;
+        int[] positions = new int[treePositions.length + 3];
+        int[] speciesIds = new int[count + 1];
+        int[] seeds = new int[count + 1];
+        System.arraycopy(treePositions, 0, positions, 0, index * 3);
+        System.arraycopy(treePositions, index * 3, positions, index * 3 + 3, treePositions.length - index * 3);
+        System.arraycopy(treeSpecies, 0, speciesIds, 0, index);
+        System.arraycopy(treeSpecies, index, speciesIds, index + 1, count - index);
+        System.arraycopy(treeSeeds, 0, seeds, 0, index);
+        System.arraycopy(treeSeeds, index, seeds, index + 1, count - index);
+        positions[index * 3] = x;
+        positions[index * 3 + 1] = y;
+        positions[index * 3 + 2] = z;
+        speciesIds[index] = species;
+        seeds[index] = seed;
+        treePositions = positions;
+        treeSpecies = speciesIds;
+        treeSeeds = seeds;
+    }
 
-        return result;
+    private boolean matches(int index, int x, int y, int z) {
+        return index < treeSpecies.length && treePositions[index * 3] == x
+                && treePositions[index * 3 + 1] == y && treePositions[index * 3 + 2] == z;
+    }
+
+    /**
+     * @return the index of the first tree not ordered before (x, z, y)
+     */
+    private int lowerBound(int x, int z, int y) {
+        int low = 0;
+        int high = treeSpecies.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int offset = mid * 3;
+            int cmp = Integer.compare(treePositions[offset], x);
+            if (cmp == 0) {
+                cmp = Integer.compare(treePositions[offset + 2], z);
+            }
+            if (cmp == 0) {
+                cmp = Integer.compare(treePositions[offset + 1], y);
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Growable buffer of (x, y, z, species, seed) tuples collected before a bulk {@link #addAll}.
+     */
+    private static final class TreeList {
+        private int[] positions;
+        private int[] species;
+        private int[] seeds;
+        private int size;
+
+        private TreeList(int capacity) {
+            positions = new int[capacity * 3];
+            species = new int[capacity];
+            seeds = new int[capacity];
+        }
+
+        private void add(int x, int y, int z, int speciesId, int seed) {
+            if (size == species.length) {
+                int capacity = Math.max(16, size * 2);
+                positions = Arrays.copyOf(positions, capacity * 3);
+                species = Arrays.copyOf(species, capacity);
+                seeds = Arrays.copyOf(seeds, capacity);
+            }
+            positions[size * 3] = x;
+            positions[size * 3 + 1] = y;
+            positions[size * 3 + 2] = z;
+            species[size] = speciesId;
+            seeds[size] = seed;
+            size++;
+        }
     }
 
     /**
@@ -188,7 +436,7 @@ public final class TreeFacetComponent implements Component {
                 z - relativeRegion.minZ() + worldRegion.minZ());
     }
 
-    
+
     public String toString() {
         Vector3i worldMin = worldRegion.min();
         Vector3i relMin = relativeRegion.min();
@@ -33,4 +33,16 @@ public enum ResourceType {
         }
         return "NULL";
     }
+
+    /**
+     * @return the type with the given {@link #toString()} name, or null if there is none
+     */
+    public static ResourceType fromString(String name) {
+        for (ResourceType type : values()) {
+            if (type.toString().equals(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
 }
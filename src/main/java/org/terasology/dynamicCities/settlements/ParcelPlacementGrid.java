@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.settlements;
+
+import org.terasology.dynamicCities.districts.DistrictType;
+import org.terasology.math.geom.Rect2i;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Occupancy bitmap of a settlement's build area, laid over the cells of its district grid.
+ * A cell is occupied as soon as any parcel touches it, so a rectangle whose cells are all free is guaranteed not to
+ * intersect a parcel. Free-rectangle checks are O(1) through a summed-area table over the occupied cells.
+ */
+public class ParcelPlacementGrid {
+
+    private final SettlementSnapshot districts;
+    private final int cellSize;
+    private final int minX;
+    private final int minY;
+    private final int cellsX;
+    private final int cellsY;
+
+    private final boolean[] occupied;
+    //(cellsX + 1) * (cellsY + 1) entries, row and column 0 are zero
+    private final int[] occupiedSums;
+    private boolean sumsDirty = true;
+
+    private final Map<String, boolean[]> zoneMasks = new HashMap<>();
+
+    /**
+     * @param districts the district grid the zone masks are read from, its occupied shapes are not marked
+     */
+    public ParcelPlacementGrid(SettlementSnapshot districts) {
+        this.districts = districts;
+        Rect2i area = districts.getWorldRegion();
+        cellSize = districts.getGridSize();
+        minX = area.minX();
+        minY = area.minY();
+        cellsX = (area.sizeX() + cellSize - 1) / cellSize;
+        cellsY = (area.sizeY() + cellSize - 1) / cellSize;
+        occupied = new boolean[cellsX * cellsY];
+        occupiedSums = new int[(cellsX + 1) * (cellsY + 1)];
+    }
+
+    public void markOccupied(Iterable<Rect2i> shapes) {
+        for (Rect2i shape : shapes) {
+            markOccupied(shape);
+        }
+    }
+
+    public void markOccupied(Rect2i shape) {
+        int x0 = Math.max(toCellX(shape.minX()), 0);
+        int y0 = Math.max(toCellY(shape.minY()), 0);
+        int x1 = Math.min(toCellX(shape.maxX()), cellsX - 1);
+        int y1 = Math.min(toCellY(shape.maxY()), cellsY - 1);
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                occupied[x + y * cellsX] = true;
+            }
+        }
+        sumsDirty = true;
+    }
+
+    /**
+     * @return true if the shape lies inside the grid and touches no occupied cell
+     */
+    public boolean isFree(Rect2i shape) {
+        int x0 = toCellX(shape.minX());
+        int y0 = toCellY(shape.minY());
+        int x1 = toCellX(shape.maxX());
+        int y1 = toCellY(shape.maxY());
+        if (x0 < 0 || y0 < 0 || x1 >= cellsX || y1 >= cellsY) {
+            return false;
+        }
+        if (sumsDirty) {
+            updateSums();
+        }
+        int stride = cellsX + 1;
+        int sum = occupiedSums[(x1 + 1) + (y1 + 1) * stride] - occupiedSums[x0 + (y1 + 1) * stride]
+                - occupiedSums[(x1 + 1) + y0 * stride] + occupiedSums[x0 + y0 * stride];
+        return sum == 0;
+    }
+
+    /**
+     * Collects the cells that are free, valid for the zone and whose origin lies within the radius.
+     * @param out receives the cell indices, must hold at least {@link #getCellCount()} entries
+     * @return the number of candidates written to {@code out}
+     */
+    public int collectCandidates(String zone, int centerX, int centerY, float radius, int[] out) {
+        boolean[] zoneMask = getZoneMask(zone);
+        float radiusSquared = radius * radius;
+        int count = 0;
+        for (int y = 0; y < cellsY; y++) {
+            int dy = minY + y * cellSize - centerY;
+            for (int x = 0; x < cellsX; x++) {
+                int index = x + y * cellsX;
+                if (occupied[index] || !zoneMask[index]) {
+                    continue;
+                }
+                int dx = minX + x * cellSize - centerX;
+                if (dx * dx + dy * dy <= radiusSquared) {
+                    out[count++] = index;
+                }
+            }
+        }
+        return count;
+    }
+
+    public int getCellCount() {
+        return cellsX * cellsY;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public int getCellWorldX(int index) {
+        return minX + (index % cellsX) * cellSize;
+    }
+
+    public int getCellWorldY(int index) {
+        return minY + (index / cellsX) * cellSize;
+    }
+
+    private boolean[] getZoneMask(String zone) {
+        boolean[] mask = zoneMasks.get(zone);
+        if (mask == null) {
+            mask = new boolean[cellsX * cellsY];
+            for (int index = 0; index < mask.length; index++) {
+                int x = getCellWorldX(index);
+                int y = getCellWorldY(index);
+                DistrictType district = districts.getDistrict(x, y);
+                mask[index] = district != null && district.isValidType(zone);
+            }
+            zoneMasks.put(zone, mask);
+        }
+        return mask;
+    }
+
+    private void updateSums() {
+        int stride = cellsX + 1;
+        Arrays.fill(occupiedSums, 0, stride, 0);
+        for (int y = 0; y < cellsY; y++) {
+            int rowSum = 0;
+            occupiedSums[(y + 1) * stride] = 0;
+            for (int x = 0; x < cellsX; x++) {
+                rowSum += occupied[x + y * cellsX] ? 1 : 0;
+                occupiedSums[(x + 1) + (y + 1) * stride] = occupiedSums[(x + 1) + y * stride] + rowSum;
+            }
+        }
+        sumsDirty = false;
+    }
+
+    private int toCellX(int worldX) {
+        return Math.floorDiv(worldX - minX, cellSize);
+    }
+
+    private int toCellY(int worldY) {
+        return Math.floorDiv(worldY - minY, cellSize);
+    }
+}
@@ -23,6 +23,7 @@ import org.terasology.dynamicCities.minimap.events.RemoveDistrictOverlayEvent;
 import org.terasology.dynamicCities.playerTracking.OnEnterSettlementEvent;
 import org.terasology.dynamicCities.settlements.components.ActiveSettlementComponent;
 import org.terasology.dynamicCities.settlements.events.SettlementRegisterEvent;
+import org.terasology.dynamicCities.utilities.CoordinateKeys;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.event.ReceiveEvent;
@@ -57,6 +58,8 @@ public class SettlementCachingSystem extends BaseComponentSystem {
 
     private boolean isInitialised;
 
+    private SettlementIndex settlementIndex = new SettlementIndex(SettlementConstants.MIN_SETTLEMENT_DISTANCE);
+
     @Override
     public void postBegin() {
         Iterator<EntityRef> settlementEntitiesIterator = entityManager.getEntitiesWith(SettlementsCacheComponent.class).iterator();
@@ -77,6 +80,9 @@ public class SettlementCachingSystem extends BaseComponentSystem {
             if (settlementsCacheComponent.settlementEntities == null) {
                 settlementsCacheComponent.settlementEntities = new HashMap<>();
             }
+            for (String posString : settlementsCacheComponent.settlementEntities.keySet()) {
+                settlementIndex.add(CoordinateKeys.parseVector2i(posString));
+            }
         }
         isInitialised = true;
 
@@ -85,7 +91,7 @@ public class SettlementCachingSystem extends BaseComponentSystem {
     @ReceiveEvent(components = {ActiveSettlementComponent.class})
     public void registerSettlement(SettlementRegisterEvent event, EntityRef settlement) {
         SettlementsCacheComponent container = settlementEntities.getComponent(SettlementsCacheComponent.class);
-        container.add(settlement);
+        settlementIndex.add(container.add(settlement));
         container.networkCache.add(settlement);
         settlementEntities.saveComponent(container);
     }
@@ -111,6 +117,13 @@ public class SettlementCachingSystem extends BaseComponentSystem {
         return settlementEntities;
     }
 
+    /**
+     * @return the positions of all registered settlements, for distance queries
+     */
+    public SettlementIndex getSettlementIndex() {
+        return settlementIndex;
+    }
+
     public boolean isInitialised() {
         return isInitialised;
     }
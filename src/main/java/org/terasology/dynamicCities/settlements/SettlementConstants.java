@@ -18,15 +18,18 @@ package org.terasology.dynamicCities.settlements;
 
 public abstract class SettlementConstants {
     public static final int SETTLEMENT_RADIUS = 160;
+    public static final int MIN_SETTLEMENT_DISTANCE = 1000;
     public static final int DISTRICT_GRIDSIZE = 8;
     public static final int MIN_POPULATIONSIZE = 200;
     public static final int MAX_POPULATIONSIZE = 900;
     public static final int MAX_BUILDINGSPAWN = 2;
     public static final int MAX_DISTRICTS = 300;
     public static final int BUILD_RADIUS_INTERVALL = 50;
-    public static final int BLOCKS_SET_PER_TICK = 10_000;
     public static final int BLOCKBUFFER_SIZE = 50_000;
     public static final int MAX_TREE_RADIUS = 13;
     public static final float MAX_BUILDABLE_ROUGHNESS = 0.3f;
     public static final int NEEDED_USABLE_REGIONS_FOR_CITY_SPAWN = 15;
+    public static final int MAX_GROWTH_WORKERS = 4;
+    public static final int SCHEDULER_TIME_BUDGET = 5;
+    public static final int SCHEDULER_ROUND_INTERVAL = 250;
 }
@@ -16,15 +16,23 @@
 package org.terasology.dynamicCities.settlements;
 
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.terasology.commonworld.Orientation;
 import org.terasology.dynamicCities.buildings.BuildingManager;
 import org.terasology.dynamicCities.buildings.BuildingQueue;
 import org.terasology.dynamicCities.construction.BlockBufferSystem;
@@ -33,16 +41,15 @@ import org.terasology.dynamicCities.construction.TreeRemovalSystem;
 import org.terasology.dynamicCities.districts.DistrictManager;
 import org.terasology.dynamicCities.parcels.DynParcel;
 import org.terasology.dynamicCities.parcels.ParcelList;
+import org.terasology.dynamicCities.playerTracking.PlayerTracker;
 import org.terasology.dynamicCities.population.CultureComponent;
 import org.terasology.dynamicCities.population.CultureManager;
 import org.terasology.dynamicCities.population.PopulationComponent;
 import org.terasology.dynamicCities.region.RegionEntityManager;
 import org.terasology.dynamicCities.region.components.RegionEntitiesComponent;
-import org.terasology.dynamicCities.region.components.ResourceFacetComponent;
 import org.terasology.dynamicCities.region.components.RoughnessFacetComponent;
 import org.terasology.dynamicCities.region.components.UnassignedRegionComponent;
 import org.terasology.dynamicCities.region.events.AssignRegionEvent;
-import org.terasology.dynamicCities.resource.ResourceType;
 import org.terasology.dynamicCities.settlements.components.ActiveSettlementComponent;
 import org.terasology.dynamicCities.settlements.components.DistrictFacetComponent;
 import org.terasology.dynamicCities.settlements.events.CheckBuildingSpawnPreconditionsEvent;
@@ -52,8 +59,11 @@ import org.terasology.dynamicCities.sites.SiteComponent;
 import org.terasology.dynamicCities.utilities.Toolbox;
 import org.terasology.economy.components.MarketSubscriberComponent;
 import org.terasology.economy.events.SubscriberRegistrationEvent;
+import org.terasology.engine.Time;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
+import org.terasology.entitySystem.event.ReceiveEvent;
 import org.terasology.entitySystem.systems.BaseComponentSystem;
 import org.terasology.entitySystem.systems.RegisterMode;
 import org.terasology.entitySystem.systems.RegisterSystem;
@@ -113,11 +123,26 @@ public class SettlementEntityManager extends BaseComponentSystem implements Upda
     @In
     private BlockBufferSystem blockBufferSystem;
 
-    private int minDistance = 1000;
+    @In
+    private PlayerTracker playerTracker;
+
+    @In
+    private Time time;
+
+    private int minDistance = SettlementConstants.MIN_SETTLEMENT_DISTANCE;
     private int settlementMaxRadius = 256;
-    private int counter = 50;
-    private int timer = 0;
+    private int ticksUntilNextRound = 50;
+    private int timeBudget = SettlementConstants.SCHEDULER_TIME_BUDGET;
+    private Deque<EntityRef> siteQueue = new ArrayDeque<>();
+    private Deque<EntityRef> settlementQueue = new ArrayDeque<>();
     private Random rng;
+    private Map<EntityRef, ParcelPlacementGrid> placementGrids = new HashMap<>();
+    private Map<EntityRef, Future<SettlementGrowthPlan>> pendingGrowth = new HashMap<>();
+    //Queued parcels whose trees have been buffered for removal, mapped to whether those blocks are placed yet
+    private Map<DynParcel, Boolean> clearedParcels = new HashMap<>();
+    //Bounds of the tree blocks buffered so far for parcels whose surroundings are not fully loaded yet
+    private Map<DynParcel, int[]> partialTreeRemovals = new HashMap<>();
+    private ExecutorService growthExecutor;
 
     private Logger logger = LoggerFactory.getLogger(SettlementEntityManager.class);
     @Override
@@ -125,7 +150,34 @@ public class SettlementEntityManager extends BaseComponentSystem implements Upda
 
         settlementEntities = settlementCachingSystem.getSettlementCacheEntity();
         rng = new FastRandom(regionEntityManager.hashCode() & 0x921233);
+        int workers = Math.max(1, Math.min(SettlementConstants.MAX_GROWTH_WORKERS, Runtime.getRuntime().availableProcessors() - 1));
+        AtomicInteger workerCount = new AtomicInteger();
+        growthExecutor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "DynamicCities-growth-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
+    @Override
+    public void shutdown() {
+        if (growthExecutor != null) {
+            growthExecutor.shutdownNow();
+        }
+        pendingGrowth.clear();
+        clearedParcels.clear();
+        partialTreeRemovals.clear();
+        siteQueue.clear();
+        settlementQueue.clear();
+    }
+
+    /**
+     * Forgets parcels whose tree removal is placed, running it again for them finds no trees and clears them at once.
+     * Removals that are still being placed are kept, as their trees are already gone from the tree facets.
+     */
+    @Override
+    public void preSave() {
+        clearedParcels.values().removeIf(Boolean::booleanValue);
     }
 
     @Override
@@ -136,44 +188,85 @@ public class SettlementEntityManager extends BaseComponentSystem implements Upda
             settlementEntities = settlementCachingSystem.getSettlementCacheEntity();
         }
 
-        counter--;
-        timer++;
-        if (counter != 0) {
-            return;
+        commitFinishedGrowth();
+        if (siteQueue.isEmpty() && settlementQueue.isEmpty()) {
+            if (--ticksUntilNextRound > 0) {
+                return;
+            }
+            startRound();
+            ticksUntilNextRound = SettlementConstants.SCHEDULER_ROUND_INTERVAL;
         }
-        Iterable<EntityRef> uncheckedSiteRegions = entityManager.getEntitiesWith(SiteComponent.class);
-        for (EntityRef siteRegion : uncheckedSiteRegions) {
-            boolean checkDistance = checkMinDistance(siteRegion);
-            boolean checkBuildArea = checkBuildArea(siteRegion);
-            if (checkDistance && regionEntityManager.checkSidesLoadedNear(siteRegion)
-                    && checkBuildArea) {
-                EntityRef newSettlement = createSettlement(siteRegion);
-                newSettlement.send(new SettlementRegisterEvent());
-                siteRegion.removeComponent(SiteComponent.class);
-            } else if (!checkDistance || !checkBuildArea) {
-                siteRegion.removeComponent(SiteComponent.class);
+
+        //Always do at least one unit of work, so every round finishes even with a tiny budget
+        long startTime = time.getRealTimeInMs();
+        boolean settlementTurn = true;
+        do {
+            if (settlementTurn && !settlementQueue.isEmpty()) {
+                EntityRef settlement = settlementQueue.poll();
+                if (settlement.exists() && settlement.hasComponent(BuildingQueue.class)) {
+                    growSettlement(settlement);
+                    build(settlement);
+                }
+            } else if (!siteQueue.isEmpty()) {
+                checkSite(siteQueue.poll());
             }
+            settlementTurn = !settlementTurn;
+        } while ((!siteQueue.isEmpty() || !settlementQueue.isEmpty())
+                && time.getRealTimeInMs() - startTime < timeBudget);
+    }
+
+    /**
+     * Queues every unchecked site and every active settlement once. Settlements with players in them go first,
+     * the rest keep their entity order, so each settlement gets exactly one growth and build step per round.
+     */
+    private void startRound() {
+        for (EntityRef siteRegion : entityManager.getEntitiesWith(SiteComponent.class)) {
+            siteQueue.add(siteRegion);
         }
-        Iterable<EntityRef> activeSettlements = entityManager.getEntitiesWith(BuildingQueue.class);
-        for (EntityRef settlement : activeSettlements) {
-            growSettlement(settlement);
-            build(settlement);
+        Collection<EntityRef> visitedSettlements = playerTracker.getPlayerCityMap().values();
+        List<EntityRef> otherSettlements = new ArrayList<>();
+        for (EntityRef settlement : entityManager.getEntitiesWith(BuildingQueue.class)) {
+            if (visitedSettlements.contains(settlement)) {
+                settlementQueue.add(settlement);
+            } else {
+                otherSettlements.add(settlement);
+            }
         }
-        counter = 250;
+        settlementQueue.addAll(otherSettlements);
+    }
+
+    private void checkSite(EntityRef siteRegion) {
+        if (!siteRegion.exists() || !siteRegion.hasComponent(SiteComponent.class)) {
+            return;
+        }
+        boolean checkDistance = checkMinDistance(siteRegion);
+        boolean checkBuildArea = checkBuildArea(siteRegion);
+        if (checkDistance && regionEntityManager.checkSidesLoadedNear(siteRegion)
+                && checkBuildArea) {
+            EntityRef newSettlement = createSettlement(siteRegion);
+            newSettlement.send(new SettlementRegisterEvent());
+            siteRegion.removeComponent(SiteComponent.class);
+        } else if (!checkDistance || !checkBuildArea) {
+            siteRegion.removeComponent(SiteComponent.class);
+        }
+    }
+
+    public int getTimeBudget() {
+        return timeBudget;
+    }
+
+    /**
+     * @param timeBudget time in milliseconds that may be spent on site checks and settlement growth per tick
+     */
+    public void setTimeBudget(int timeBudget) {
+        this.timeBudget = timeBudget;
     }
 
 
     public boolean checkMinDistance(EntityRef siteRegion) {
         Vector3f sitePos = siteRegion.getComponent(LocationComponent.class).getLocalPosition();
         Vector2i pos = new Vector2i(sitePos.x(), sitePos.z());
-        SettlementsCacheComponent container = settlementEntities.getComponent(SettlementsCacheComponent.class);
-        for (String vector2iString : container.settlementEntities.keySet()) {
-            Vector2i activePosition = Toolbox.stringToVector2i(vector2iString);
-            if (pos.distance(activePosition) < minDistance) {
-                return false;
-            }
-        }
-        return true;
+        return !settlementCachingSystem.getSettlementIndex().hasSettlementWithin(pos, minDistance);
     }
 
     public boolean checkMinDistanceCell(Vector2i pos) {
@@ -181,14 +274,7 @@ public class SettlementEntityManager extends BaseComponentSystem implements Upda
             return true;
         }
 
-        SettlementsCacheComponent container = settlementEntities.getComponent(SettlementsCacheComponent.class);
-        for (String vector2iString : container.settlementEntities.keySet()) {
-            Vector2i activePosition = Toolbox.stringToVector2i(vector2iString);
-            if (pos.distance(activePosition) < minDistance - settlementMaxRadius) {
-                return false;
-            }
-        }
-        return true;
+        return !settlementCachingSystem.getSettlementIndex().hasSettlementWithin(pos, minDistance - settlementMaxRadius);
     }
 
     public boolean checkMinDistanceCell(String posString) {
@@ -326,26 +412,58 @@ public class SettlementEntityManager extends BaseComponentSystem implements Upda
 
 
         for (DynParcel dynParcel : parcelsInQueue) {
-            Rect2i expandedParcel = dynParcel.shape.expand(SettlementConstants.MAX_TREE_RADIUS, SettlementConstants.MAX_TREE_RADIUS);
-            if (!treeRemovalSystem.removeTreesInRegions(expandedParcel)) {
+            if (!clearTrees(dynParcel)) {
                 continue;
             }
 
             if (constructer.buildParcel(dynParcel, settlement, cultureComponent)) {
                 removedParcels.add(dynParcel);
+                clearedParcels.remove(dynParcel);
             }
         }
         for (DynParcel dynParcel : removedParcels) {
             parcelList.addParcel(dynParcel);
         }
-        parcelsInQueue.removeAll(removedParcels);
+        buildingQueue.removeAll(removedParcels);
+        clearedParcels.keySet().retainAll(parcelsInQueue);
+        partialTreeRemovals.keySet().retainAll(parcelsInQueue);
 
         settlement.saveComponent(buildingQueue);
         settlement.saveComponent(parcelList);
     }
 
+    /**
+     * Buffers the removal of the trees around a parcel once and holds construction back until the block buffer has
+     * placed those removals.
+     * @return true if the parcel is clear of trees and can be built
+     */
+    private boolean clearTrees(DynParcel dynParcel) {
+        Boolean cleared = clearedParcels.get(dynParcel);
+        if (cleared != null) {
+            return cleared;
+        }
+        Rect2i expandedParcel = dynParcel.shape.expand(SettlementConstants.MAX_TREE_RADIUS, SettlementConstants.MAX_TREE_RADIUS);
+        int[] bounds = partialTreeRemovals.computeIfAbsent(dynParcel, parcel -> TreeRemovalSystem.emptyBounds());
+        if (!treeRemovalSystem.removeTreesInRegions(expandedParcel, bounds)) {
+            return false;
+        }
+        partialTreeRemovals.remove(dynParcel);
+        Region3i treeArea = TreeRemovalSystem.toRegion(bounds);
+        if (treeArea == null) {
+            clearedParcels.put(dynParcel, true);
+            return true;
+        }
+        clearedParcels.put(dynParcel, false);
+        blockBufferSystem.whenRegionProcessed(treeArea, () -> clearedParcels.replace(dynParcel, true));
+        return clearedParcels.get(dynParcel);
+    }
+
+    /**
+     * Snapshots the settlement and hands the placement of new parcels to the growth workers.
+     * The result is applied in {@link #commitGrowth(SettlementGrowthPlan)}. Only one plan per settlement is in flight.
+     */
     public void growSettlement(EntityRef settlement) {
-        if (blockBufferSystem.getBlockBufferSize() > SettlementConstants.BLOCKBUFFER_SIZE) {
+        if (blockBufferSystem.getBlockBufferSize() > SettlementConstants.BLOCKBUFFER_SIZE || pendingGrowth.containsKey(settlement)) {
             return;
         }
         DistrictFacetComponent districtFacetComponent = settlement.getComponent(DistrictFacetComponent.class);
@@ -357,7 +475,6 @@ public class SettlementEntityManager extends BaseComponentSystem implements Upda
         CultureComponent cultureComponent = settlement.getComponent(CultureComponent.class);
 
         int maxIterations = 500;
-        int buildingSpawned = 0;
         List<String> zones = new ArrayList<>(buildingManager.getZones());
         Map<String, List<Vector2i>> minMaxSizes = buildingManager.getMinMaxSizePerZone();
 
@@ -390,8 +507,8 @@ public class SettlementEntityManager extends BaseComponentSystem implements Upda
             return;
         }
 
-        Vector3i center = new Vector3i(locationComponent.getLocalPosition());
-
+        //Demand only changes when parcels are built, so it is evaluated here once for the whole plan
+        List<String> zonesToGrow = new ArrayList<>();
         for (String zone : zones) {
             //Checks if the demand for a building of that zone is enough
             CheckBuildingSpawnPreconditionsEvent preconditionsEvent = new CheckBuildingSpawnPreconditionsEvent(zone);
@@ -399,26 +516,66 @@ public class SettlementEntityManager extends BaseComponentSystem implements Upda
             if (!preconditionsEvent.isHandled) {
                 preconditionsEvent.check = true;
             }
-            while (cultureComponent.getBuildingNeedsForZone(zone) * populationComponent.populationSize - parcels.areaPerZone.getOrDefault(zone, 0) > minMaxSizes.get(zone).get(0).x * minMaxSizes.get(zone).get(0).y
-                    && buildingSpawned < SettlementConstants.MAX_BUILDINGSPAWN && preconditionsEvent.check) {
-                Optional<DynParcel> parcelOptional = placeParcel(center, zone, parcels, buildingQueue, districtFacetComponent, maxIterations);
-                //Grow settlement radius if no valid area was found
-                if (!parcelOptional.isPresent() && parcels.cityRadius < SettlementConstants.SETTLEMENT_RADIUS) {
-                    parcels.cityRadius += SettlementConstants.BUILD_RADIUS_INTERVALL;
-                    //Add region entities of the now bigger zone
-                    getSurroundingRegions(settlement);
-                    break;
-                } else if (!parcelOptional.isPresent()) {
-                    break;
-                }
-                //TODO Maybe send an event here?
-                DynParcel parcel = parcelOptional.get();
-                buildingQueue.buildingQueue.add(parcel);
+            if (cultureComponent.getBuildingNeedsForZone(zone) * populationComponent.populationSize - parcels.areaPerZone.getOrDefault(zone, 0) > minMaxSizes.get(zone).get(0).x * minMaxSizes.get(zone).get(0).y
+                    && preconditionsEvent.check) {
+                zonesToGrow.add(zone);
+            }
+        }
+
+        List<DynParcel> occupiedParcels = new ArrayList<>(parcels.parcels);
+        occupiedParcels.addAll(buildingQueue.buildingQueue);
+        SettlementSnapshot snapshot = new SettlementSnapshot(districtFacetComponent, occupiedParcels);
+        SettlementGrowthPlanner planner = new SettlementGrowthPlanner(settlement, new Vector3i(locationComponent.getLocalPosition()),
+                zonesToGrow, new HashMap<>(minMaxSizes), parcels.cityRadius, parcels.builtUpRadius, snapshot,
+                getPlacementGrid(settlement, snapshot), regionEntityManager.snapshotBuildability(districtFacetComponent.worldRegion),
+                new FastRandom(rng.nextLong()), maxIterations);
+        pendingGrowth.put(settlement, growthExecutor.submit(planner));
+    }
 
-                buildingSpawned++;
+    /**
+     * Applies the plans whose planning phase has finished.
+     */
+    private void commitFinishedGrowth() {
+        Iterator<Map.Entry<EntityRef, Future<SettlementGrowthPlan>>> iter = pendingGrowth.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<EntityRef, Future<SettlementGrowthPlan>> entry = iter.next();
+            Future<SettlementGrowthPlan> future = entry.getValue();
+            if (!future.isDone()) {
+                continue;
             }
-            buildingSpawned = 0;
+            iter.remove();
+            try {
+                commitGrowth(future.get());
+            } catch (InterruptedException | ExecutionException e) {
+                logger.error("Settlement growth planning failed", e);
+                discardPlacementGrid(entry.getKey());
+            }
+        }
+    }
+
+    private void commitGrowth(SettlementGrowthPlan plan) {
+        EntityRef settlement = plan.getSettlement();
+        if (!settlement.exists()) {
+            discardPlacementGrid(settlement);
+            return;
+        }
+        PopulationComponent populationComponent = settlement.getComponent(PopulationComponent.class);
+        ParcelList parcels = settlement.getComponent(ParcelList.class);
+        BuildingQueue buildingQueue = settlement.getComponent(BuildingQueue.class);
+        NameTagComponent nameTagComponent = settlement.getComponent(NameTagComponent.class);
+        CultureComponent cultureComponent = settlement.getComponent(CultureComponent.class);
+        if (populationComponent == null || parcels == null || buildingQueue == null || nameTagComponent == null || cultureComponent == null) {
+            logger.error("Settlement lost its components while growing!");
+            discardPlacementGrid(settlement);
+            return;
         }
+
+        //TODO Maybe send an event here?
+        if (plan.applyTo(parcels, buildingQueue)) {
+            //Add region entities of the now bigger zone
+            getSurroundingRegions(settlement);
+        }
+
         /**
          * grow population
          */
@@ -437,63 +594,34 @@ public class SettlementEntityManager extends BaseComponentSystem implements Upda
         settlement.send(new SettlementGrowthEvent());
     }
 
-    private Optional<DynParcel> placeParcel(Vector3i center, String zone, ParcelList parcels,
-                                            BuildingQueue buildingQueue, DistrictFacetComponent districtFacetComponent, int maxIterations) {
-        int iter = 0;
-        Map<String, List<Vector2i>> minMaxSizes = buildingManager.getMinMaxSizePerZone();
-        int minSize = (minMaxSizes.get(zone).get(0).getX() < minMaxSizes.get(zone).get(0).getY())
-                ? minMaxSizes.get(zone).get(0).getX() : minMaxSizes.get(zone).get(0).getY();
-        int maxSize = (minMaxSizes.get(zone).get(1).getX() < minMaxSizes.get(zone).get(1).getY())
-                ? minMaxSizes.get(zone).get(1).getX() : minMaxSizes.get(zone).get(1).getY();
-        int sizeX = rng.nextInt(minSize, maxSize);
-        int sizeY = rng.nextInt(minSize, maxSize);
-        Rect2i shape;
-        Orientation orientation = Orientation.NORTH.getRotated(90 * rng.nextInt(5));
-        Vector2i rectPosition = new Vector2i();
-        float radius;
-        do {
-            iter++;
-            float angle = rng.nextFloat(0, 360);
-            //Subtract the maximum tree radius (13) from the parcel radius -> Some bigger buildings still could cause issues
-            radius = rng.nextFloat(0, parcels.cityRadius - 32);
-            rectPosition.set((int) Math.round(radius * Math.sin((double) angle) + center.x()),
-                    (int) Math.round(radius * Math.cos((double) angle)) + center.z());
-            shape = Rect2i.createFromMinAndSize(rectPosition.x(), rectPosition.y(), sizeX, sizeY);
-        } while ((!parcels.isNotIntersecting(shape) || !buildingQueue.isNotIntersecting(shape)
-                || !(districtFacetComponent.getDistrict(rectPosition.x(), rectPosition.y()).isValidType(zone)) || !checkIfTerrainIsBuildable(shape))
-                && iter != maxIterations);
-        //Keep track of the most distant building to the center
-        if (radius > parcels.builtUpRadius) {
-            parcels.builtUpRadius = radius;
-        }
-        if (iter == maxIterations) {
-            return Optional.empty();
-        } else {
-            return Optional.of(new DynParcel(shape, orientation, zone, center.y()));
+    /**
+     * Drops the settlement's pending plan and placement grid when it is destroyed or unloaded.
+     */
+    @ReceiveEvent(components = {BuildingQueue.class})
+    public void onSettlementDeactivated(BeforeDeactivateComponent event, EntityRef settlement) {
+        Future<SettlementGrowthPlan> pending = pendingGrowth.remove(settlement);
+        if (pending != null) {
+            pending.cancel(false);
         }
+        discardPlacementGrid(settlement);
     }
 
-    private boolean checkIfTerrainIsBuildable(Rect2i area) {
-        List<EntityRef> regions = regionEntityManager.getRegionsInArea(area);
-        if (regions.isEmpty()) {
-            //logger.debug("No regions found in area " + area.toString());
-            return false;
-        }
-        for (EntityRef region : regions) {
-            RoughnessFacetComponent roughnessFacetComponent = region.getComponent(RoughnessFacetComponent.class);
-            ResourceFacetComponent resourceFacetComponent = region.getComponent(ResourceFacetComponent.class);
-            if (roughnessFacetComponent == null) {
-                logger.error("No RoughnessFacetComponent found for region");
-                return false;
-            }
-            if (roughnessFacetComponent.meanDeviation > SettlementConstants.MAX_BUILDABLE_ROUGHNESS) {
-                return false;
-            }
-            if (resourceFacetComponent.getResourceSum(ResourceType.WATER.toString()) != 0) {
-                return false;
-            }
+    /**
+     * The grid still holds the cells of a plan that was not committed. It cannot tell which cells belong to that plan,
+     * so it is dropped and rebuilt from the parcels the settlement actually has on its next growth step.
+     */
+    private void discardPlacementGrid(EntityRef settlement) {
+        placementGrids.remove(settlement);
+    }
+
+    private ParcelPlacementGrid getPlacementGrid(EntityRef settlement, SettlementSnapshot snapshot) {
+        ParcelPlacementGrid placementGrid = placementGrids.get(settlement);
+        if (placementGrid == null) {
+            placementGrid = new ParcelPlacementGrid(snapshot);
+            placementGrid.markOccupied(snapshot.getOccupiedShapes());
+            placementGrids.put(settlement, placementGrid);
         }
-        return true;
+        return placementGrid;
     }
 
 
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.settlements;
+
+import org.terasology.dynamicCities.buildings.BuildingQueue;
+import org.terasology.dynamicCities.parcels.DynParcel;
+import org.terasology.dynamicCities.parcels.ParcelList;
+import org.terasology.entitySystem.entity.EntityRef;
+
+import java.util.List;
+
+/**
+ * Result of a {@link SettlementGrowthPlanner}, applied to the settlement on the game thread.
+ */
+public class SettlementGrowthPlan {
+
+    private final EntityRef settlement;
+    private final List<DynParcel> parcels;
+    private final float cityRadius;
+    private final float builtUpRadius;
+
+    public SettlementGrowthPlan(EntityRef settlement, List<DynParcel> parcels, float cityRadius, float builtUpRadius) {
+        this.settlement = settlement;
+        this.parcels = parcels;
+        this.cityRadius = cityRadius;
+        this.builtUpRadius = builtUpRadius;
+    }
+
+    /**
+     * Queues the planned parcels and takes over the grown radii. Runs on the game thread.
+     * @return true if the city radius grew
+     */
+    public boolean applyTo(ParcelList parcelList, BuildingQueue buildingQueue) {
+        parcels.forEach(buildingQueue::add);
+        parcelList.builtUpRadius = Math.max(parcelList.builtUpRadius, builtUpRadius);
+        if (cityRadius > parcelList.cityRadius) {
+            parcelList.cityRadius = cityRadius;
+            return true;
+        }
+        return false;
+    }
+
+    public EntityRef getSettlement() {
+        return settlement;
+    }
+
+    public List<DynParcel> getParcels() {
+        return parcels;
+    }
+
+    public float getCityRadius() {
+        return cityRadius;
+    }
+
+    public float getBuiltUpRadius() {
+        return builtUpRadius;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.settlements;
+
+import org.terasology.commonworld.Orientation;
+import org.terasology.dynamicCities.districts.DistrictType;
+import org.terasology.dynamicCities.parcels.DynParcel;
+import org.terasology.dynamicCities.parcels.ParcelGrid;
+import org.terasology.dynamicCities.region.BuildabilitySnapshot;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.geom.Rect2i;
+import org.terasology.math.geom.Vector2i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.utilities.random.Random;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Planning phase of a settlement's growth, run on a worker thread.
+ * Works on snapshots taken on the game thread and never touches the entity system or the settlement's parcels.
+ * The {@link ParcelPlacementGrid} is handed over exclusively until the plan is committed.
+ */
+public class SettlementGrowthPlanner implements Callable<SettlementGrowthPlan> {
+
+    private final EntityRef settlement;
+    private final Vector3i center;
+    private final List<String> zones;
+    private final Map<String, List<Vector2i>> minMaxSizes;
+    private final SettlementSnapshot snapshot;
+    private final ParcelPlacementGrid placementGrid;
+    private final ParcelGrid occupiedParcels = new ParcelGrid();
+    private final BuildabilitySnapshot buildability;
+    private final Random rng;
+    private final int maxIterations;
+
+    private float cityRadius;
+    private float builtUpRadius;
+    //Candidate cells of the zone being grown, drawn by their cumulative weights
+    private int[] placementCandidates = new int[0];
+    private float[] cumulativeWeights = new float[0];
+    private boolean[] candidateTaken = new boolean[0];
+    private int candidateCount;
+    private int candidatesLeft;
+
+    /**
+     * @param zones the zones that need more buildings, in the order they are grown
+     */
+    public SettlementGrowthPlanner(EntityRef settlement, Vector3i center, List<String> zones,
+                                   Map<String, List<Vector2i>> minMaxSizes, float cityRadius, float builtUpRadius,
+                                   SettlementSnapshot snapshot, ParcelPlacementGrid placementGrid,
+                                   BuildabilitySnapshot buildability, Random rng, int maxIterations) {
+        this.settlement = settlement;
+        this.center = new Vector3i(center);
+        this.zones = new ArrayList<>(zones);
+        this.minMaxSizes = minMaxSizes;
+        this.cityRadius = cityRadius;
+        this.builtUpRadius = builtUpRadius;
+        this.snapshot = snapshot;
+        this.placementGrid = placementGrid;
+        this.buildability = buildability;
+        this.rng = rng;
+        this.maxIterations = maxIterations;
+    }
+
+    @Override
+    public SettlementGrowthPlan call() {
+        //Stand-in parcels for the overlap test, the settlement's own parcels stay on the game thread
+        for (Rect2i shape : snapshot.getOccupiedShapes()) {
+            occupiedParcels.add(new DynParcel(shape, Orientation.NORTH, null, 0));
+        }
+        List<DynParcel> newParcels = new ArrayList<>();
+        for (String zone : zones) {
+            collectCandidates(zone);
+            for (int buildingSpawned = 0; buildingSpawned < SettlementConstants.MAX_BUILDINGSPAWN; buildingSpawned++) {
+                DynParcel parcel = placeParcel(zone);
+                //Grow settlement radius if no valid area was found
+                if (parcel == null) {
+                    if (cityRadius < SettlementConstants.SETTLEMENT_RADIUS) {
+                        cityRadius += SettlementConstants.BUILD_RADIUS_INTERVALL;
+                    }
+                    break;
+                }
+                newParcels.add(parcel);
+                occupiedParcels.add(parcel);
+            }
+        }
+        return new SettlementGrowthPlan(settlement, newParcels, cityRadius, builtUpRadius);
+    }
+
+    /**
+     * Draws parcel positions from the candidate cells of the zone, instead of rejection sampling the whole city circle.
+     * A drawn cell is used up whether or not the parcel fits, every draw counts as an iteration.
+     * @return the placed parcel or null if no valid position was found
+     */
+    private DynParcel placeParcel(String zone) {
+        List<Vector2i> sizes = minMaxSizes.get(zone);
+        int minSize = Math.min(sizes.get(0).getX(), sizes.get(0).getY());
+        int maxSize = Math.min(sizes.get(1).getX(), sizes.get(1).getY());
+        int sizeX = rng.nextInt(minSize, maxSize);
+        int sizeY = rng.nextInt(minSize, maxSize);
+        Orientation orientation = Orientation.NORTH.getRotated(90 * rng.nextInt(5));
+
+        int cellSize = placementGrid.getCellSize();
+
+        for (int iter = 0; iter < maxIterations && candidatesLeft > 0; iter++) {
+            int pick = drawCandidate();
+            if (candidateTaken[pick]) {
+                continue;
+            }
+            candidateTaken[pick] = true;
+            candidatesLeft--;
+            int cell = placementCandidates[pick];
+
+            int posX = placementGrid.getCellWorldX(cell) + rng.nextInt(cellSize);
+            int posY = placementGrid.getCellWorldY(cell) + rng.nextInt(cellSize);
+            Rect2i shape = Rect2i.createFromMinAndSize(posX, posY, sizeX, sizeY);
+
+            //Touching an occupied cell does not imply an overlap, so fall back to the exact test
+            if (!placementGrid.isFree(shape) && occupiedParcels.overlaps(shape)) {
+                continue;
+            }
+            DistrictType district = snapshot.getDistrict(posX, posY);
+            if (district == null || !district.isValidType(zone) || !buildability.isAreaBuildable(shape)) {
+                continue;
+            }
+
+            //Keep track of the most distant building to the center
+            float radius = (float) Math.sqrt((posX - center.x()) * (posX - center.x()) + (posY - center.z()) * (posY - center.z()));
+            if (radius > builtUpRadius) {
+                builtUpRadius = radius;
+            }
+            placementGrid.markOccupied(shape);
+            return new DynParcel(shape, orientation, zone, center.y());
+        }
+        return null;
+    }
+
+    /**
+     * Collects the candidate cells of the zone once per zone and weights them with min(1, cellSize / distance).
+     * This keeps the centre bias of the former polar sampling, where a uniform radius puts a share proportional to
+     * 1 / distance on each cell. Cells occupied later on are caught by the overlap test when they are drawn.
+     */
+    private void collectCandidates(String zone) {
+        int cellCount = placementGrid.getCellCount();
+        if (placementCandidates.length < cellCount) {
+            placementCandidates = new int[cellCount];
+            cumulativeWeights = new float[cellCount];
+            candidateTaken = new boolean[cellCount];
+        }
+        //Subtract 32 from the city radius -> Some bigger buildings still could cause issues
+        candidateCount = placementGrid.collectCandidates(zone, center.x(), center.z(), cityRadius - 32, placementCandidates);
+        candidatesLeft = candidateCount;
+        int cellSize = placementGrid.getCellSize();
+        float totalWeight = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int cell = placementCandidates[i];
+            float dx = placementGrid.getCellWorldX(cell) + cellSize / 2f - center.x();
+            float dy = placementGrid.getCellWorldY(cell) + cellSize / 2f - center.z();
+            float distance = (float) Math.sqrt(dx * dx + dy * dy);
+            totalWeight += distance <= cellSize ? 1f : cellSize / distance;
+            cumulativeWeights[i] = totalWeight;
+            candidateTaken[i] = false;
+        }
+    }
+
+    /**
+     * @return the index of a candidate drawn by weight, taken candidates keep their weight and can be drawn again
+     */
+    private int drawCandidate() {
+        float target = rng.nextFloat() * cumulativeWeights[candidateCount - 1];
+        int index = Arrays.binarySearch(cumulativeWeights, 0, candidateCount, target);
+        //Weights are positive, so the first entry above the target is the one after an exact match
+        index = index >= 0 ? index + 1 : -index - 1;
+        return Math.min(index, candidateCount - 1);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.settlements;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import org.terasology.dynamicCities.utilities.CoordinateKeys;
+import org.terasology.math.geom.BaseVector2i;
+import org.terasology.math.geom.Vector2i;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settlement positions bucketed in a uniform grid. With buckets as large as the queried distance,
+ * a neighbour query only looks at the 3x3 buckets around the position.
+ */
+public class SettlementIndex {
+
+    private final int bucketSize;
+    private final TLongObjectMap<List<Vector2i>> buckets = new TLongObjectHashMap<>();
+    private int size;
+
+    public SettlementIndex(int bucketSize) {
+        this.bucketSize = bucketSize;
+    }
+
+    /**
+     * Adds the position unless it is already indexed, like the settlement cache keeps one settlement per position.
+     * @return true if the position was added
+     */
+    public boolean add(BaseVector2i pos) {
+        long key = CoordinateKeys.pack(toBucket(pos.x()), toBucket(pos.y()));
+        List<Vector2i> bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new ArrayList<>(2);
+            buckets.put(key, bucket);
+        }
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i).x() == pos.x() && bucket.get(i).y() == pos.y()) {
+                return false;
+            }
+        }
+        bucket.add(new Vector2i(pos));
+        size++;
+        return true;
+    }
+
+    /**
+     * @return true if a settlement lies closer than the given distance to the position
+     */
+    public boolean hasSettlementWithin(BaseVector2i pos, float distance) {
+        if (distance <= 0) {
+            return false;
+        }
+        float distanceSquared = distance * distance;
+        int reach = (int) Math.ceil(distance / bucketSize);
+        int bucketX = toBucket(pos.x());
+        int bucketY = toBucket(pos.y());
+        for (int y = bucketY - reach; y <= bucketY + reach; y++) {
+            for (int x = bucketX - reach; x <= bucketX + reach; x++) {
+                List<Vector2i> bucket = buckets.get(CoordinateKeys.pack(x, y));
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 0; i < bucket.size(); i++) {
+                    long dx = bucket.get(i).x() - pos.x();
+                    long dy = bucket.get(i).y() - pos.y();
+                    if (dx * dx + dy * dy < distanceSquared) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        buckets.clear();
+        size = 0;
+    }
+
+    private int toBucket(int coord) {
+        return Math.floorDiv(coord, bucketSize);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.settlements;
+
+import org.terasology.dynamicCities.districts.DistrictType;
+import org.terasology.dynamicCities.parcels.DynParcel;
+import org.terasology.dynamicCities.settlements.components.DistrictFacetComponent;
+import org.terasology.dynamicCities.utilities.GridIndex;
+import org.terasology.math.geom.Rect2i;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Copy of the district grid and the occupied parcel shapes of a settlement, taken on the game thread.
+ * Holds no components or parcels, so it can be read from any thread while the settlement keeps changing.
+ */
+public final class SettlementSnapshot {
+
+    private final Rect2i worldRegion;
+    private final int gridSize;
+    private final GridIndex gridIndex;
+    private final int[] districtMap;
+    //District type per cluster id
+    private final DistrictType[] districtTypes;
+    private final List<Rect2i> occupiedShapes;
+
+    /**
+     * @param parcels the built and queued parcels of the settlement, only their current shapes are kept
+     */
+    public SettlementSnapshot(DistrictFacetComponent districtFacet, Iterable<DynParcel> parcels) {
+        worldRegion = districtFacet.worldRegion;
+        gridSize = districtFacet.gridSize;
+        gridIndex = new GridIndex(districtFacet.worldRegion, districtFacet.relativeRegion, districtFacet.gridWorldRegion,
+                districtFacet.gridRelativeRegion, districtFacet.center, districtFacet.gridSize);
+        districtMap = new int[districtFacet.districtMap.size()];
+        for (int i = 0; i < districtMap.length; i++) {
+            districtMap[i] = districtFacet.districtMap.get(i);
+        }
+        districtTypes = new DistrictType[districtFacet.districtCount];
+        for (int i = 0; i < districtTypes.length; i++) {
+            districtTypes[i] = districtFacet.districtTypeMap.get(Integer.toString(i));
+        }
+        List<Rect2i> shapes = new ArrayList<>();
+        for (DynParcel parcel : parcels) {
+            shapes.add(parcel.getShape());
+        }
+        occupiedShapes = Collections.unmodifiableList(shapes);
+    }
+
+    /**
+     * @return the district at the world position, or null if the position lies outside the district grid
+     */
+    public DistrictType getDistrict(int x, int y) {
+        if (!worldRegion.contains(x, y)) {
+            return null;
+        }
+        int cluster = districtMap[gridIndex.worldIndex(x, y)];
+        return cluster >= 0 && cluster < districtTypes.length ? districtTypes[cluster] : null;
+    }
+
+    public Rect2i getWorldRegion() {
+        return worldRegion;
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    public List<Rect2i> getOccupiedShapes() {
+        return occupiedShapes;
+    }
+}
@@ -36,11 +36,14 @@ public final class SettlementsCacheComponent implements Component {
 
     public SettlementsCacheComponent() { }
 
-    public void add(EntityRef settlement) {
+    /**
+     * @return the position the settlement was registered at
+     */
+    public Vector2i add(EntityRef settlement) {
         Vector3f pos3f = settlement.getComponent(LocationComponent.class).getWorldPosition();
         Vector2i pos = new Vector2i(pos3f.x(), pos3f.z());
         settlementEntities.put(pos.toString(), settlement);
-
+        return pos;
     }
 
     public EntityRef get(Vector2i position) {
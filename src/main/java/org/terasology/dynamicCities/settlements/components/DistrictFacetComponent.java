@@ -21,6 +21,8 @@ import org.terasology.dynamicCities.districts.DistrictType;
 import org.terasology.dynamicCities.districts.Kmeans;
 import org.terasology.dynamicCities.population.CultureComponent;
 import org.terasology.dynamicCities.settlements.SettlementConstants;
+import org.terasology.dynamicCities.utilities.GridIndex;
+import org.terasology.dynamicCities.utilities.LazyGridIndex;
 import org.terasology.dynamicCities.utilities.ProbabilityDistribution;
 import org.terasology.entitySystem.Component;
 import org.terasology.math.Region3i;
@@ -68,6 +70,10 @@ public class DistrictFacetComponent implements Component {
     @Replicate
     public List<Vector2i> districtCenters;
 
+    private final transient LazyGridIndex gridIndex = new LazyGridIndex();
+    //District type per cluster id, resolved from districtTypeMap on first use and only published once filled
+    private transient volatile DistrictType[] districtTypes;
+
     public DistrictFacetComponent() { }
 
     public DistrictFacetComponent(Region3i targetRegion, Border3D border, int gridSize, long seed, DistrictManager districtManager, CultureComponent cultureComponent) {
@@ -186,7 +192,26 @@ public class DistrictFacetComponent implements Component {
     }
 
     public DistrictType getDistrict(int x, int y) {
-        return districtTypeMap.get(Integer.toString(getWorld(x, y)));
+        return getDistrictType(getWorld(x, y));
+    }
+
+    /**
+     * Reads the district of a world grid cell without bounds checks, for loops over {@link #getGridWorldRegion()}.
+     */
+    public DistrictType getDistrictAtWorldGrid(int gridX, int gridY) {
+        return getDistrictType(districtMap.get(getGridIndex().uncheckedWorldGridIndex(gridX, gridY)));
+    }
+
+    private DistrictType getDistrictType(int cluster) {
+        DistrictType[] types = districtTypes;
+        if (types == null) {
+            types = new DistrictType[districtCount];
+            for (int i = 0; i < districtCount; i++) {
+                types[i] = districtTypeMap.get(Integer.toString(i));
+            }
+            districtTypes = types;
+        }
+        return cluster >= 0 && cluster < types.length ? types[cluster] : null;
     }
 
     //Copy of the methods used to access the data. Maybe there is a better way than storing them all here
@@ -196,18 +221,7 @@ public class DistrictFacetComponent implements Component {
     }
 
     public Vector2i getWorldPoint(int x, int y) {
-        if (!gridWorldRegion.contains(x, y)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, y, gridWorldRegion.toString()));
-        }
-        int xRelative = x - center.x();
-        int yRelative = y - center.y();
-        int xNew = center.x() + Math.round((float) xRelative * gridSize);
-        int yNew = center.y() + Math.round((float) yRelative * gridSize);
-        Vector2i gridPoint = new Vector2i(xNew, yNew);
-        if (!worldRegion.contains(gridPoint)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", xNew, yNew, worldRegion.toString()));
-        }
-        return gridPoint;
+        return getGridIndex().worldPoint(x, y);
     }
 
     public Vector2i getRelativeGridPoint(Vector2i worldPoint) {
@@ -215,16 +229,7 @@ public class DistrictFacetComponent implements Component {
     }
 
     public Vector2i getRelativeGridPoint(int x, int y) {
-        if (!relativeRegion.contains(x, y)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, y, relativeRegion.toString()));
-        }
-        int xNew = Math.round((float) x / gridSize);
-        int yNew = Math.round((float) y / gridSize);
-        Vector2i gridPoint = new Vector2i(xNew, yNew);
-        if (!gridRelativeRegion.contains(gridPoint)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", xNew, yNew, gridRelativeRegion.toString()));
-        }
-        return gridPoint;
+        return getGridIndex().relativeGridPoint(x, y);
     }
 
     public Vector2i getWorldGridPoint(Vector2i worldPoint) {
@@ -232,18 +237,7 @@ public class DistrictFacetComponent implements Component {
     }
 
     public Vector2i getWorldGridPoint(int x, int y) {
-        if (!worldRegion.contains(x, y)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, y, worldRegion.toString()));
-        }
-        int xRelative = x - center.x();
-        int yRelative = y - center.y();
-        int xNew = center.x() + Math.round((float) xRelative / gridSize);
-        int yNew = center.y() + Math.round((float) yRelative / gridSize);
-        Vector2i gridPoint = new Vector2i(xNew, yNew);
-        if (!gridWorldRegion.contains(gridPoint)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", xNew, yNew, gridWorldRegion.toString()));
-        }
-        return gridPoint;
+        return getGridIndex().worldGridPoint(x, y);
     }
 
     public int getGridSize() {
@@ -254,18 +248,16 @@ public class DistrictFacetComponent implements Component {
         return center;
     }
 
+    public GridIndex getGridIndex() {
+        return gridIndex.get(worldRegion, relativeRegion, gridWorldRegion, gridRelativeRegion, center, gridSize);
+    }
+
     protected int getRelativeGridIndex(int x, int z) {
-        if (!gridRelativeRegion.contains(x, z)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, z, gridWorldRegion.toString()));
-        }
-        return x - gridRelativeRegion.minX() + gridRelativeRegion.sizeX() * (z - gridRelativeRegion.minY());
+        return getGridIndex().relativeGridIndex(x, z);
     }
 
     protected int getWorldGridIndex(int x, int z) {
-        if (!gridWorldRegion.contains(x, z)) {
-            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, z, gridWorldRegion.toString()));
-        }
-        return x - gridWorldRegion.minX() + gridWorldRegion.sizeX() * (z - gridWorldRegion.minY());
+        return getGridIndex().worldGridIndex(x, z);
     }
 
     public Rect2i getGridWorldRegion() {
@@ -277,8 +269,7 @@ public class DistrictFacetComponent implements Component {
     }
 
     public int get(int x, int y) {
-        BaseVector2i gridPos = getRelativeGridPoint(x, y);
-        return districtMap.get(getRelativeGridIndex(gridPos.x(), gridPos.y()));
+        return districtMap.get(getGridIndex().relativeIndex(x, y));
     }
 
     public int get(BaseVector2i pos) {
@@ -286,8 +277,7 @@ public class DistrictFacetComponent implements Component {
     }
 
     public int getWorld(int x, int y) {
-        BaseVector2i gridPos = getWorldGridPoint(x, y);
-        return districtMap.get(getWorldGridIndex(gridPos.x(), gridPos.y()));
+        return districtMap.get(getGridIndex().worldIndex(x, y));
     }
 
     public int getWorld(BaseVector2i pos) {
@@ -304,7 +294,6 @@ public class DistrictFacetComponent implements Component {
     }
 
     public void set(BaseVector2i pos, List<Float> value) {
-        BaseVector2i gridPos = getRelativeGridPoint(pos.x(), pos.y());
         set(pos.x(), pos.y(), value);
     }
 
@@ -314,8 +303,7 @@ public class DistrictFacetComponent implements Component {
     }
 
     public void setWorld(BaseVector2i pos, List<Float> value) {
-        BaseVector2i gridPos = getWorldGridPoint(pos.x(), pos.y());
-        setWorld(gridPos.x(), gridPos.y(), value);
+        setWorld(pos.x(), pos.y(), value);
     }
 
     public void set(List<Float>[] newData) {
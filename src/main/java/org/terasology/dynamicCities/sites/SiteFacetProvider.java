@@ -20,10 +20,11 @@ import org.terasology.dynamicCities.facets.ResourceFacet;
 import org.terasology.dynamicCities.facets.RoughnessFacet;
 import org.terasology.dynamicCities.resource.ResourceType;
 import org.terasology.dynamicCities.settlements.SettlementConstants;
+import org.terasology.dynamicCities.utilities.GridIndex;
 import org.terasology.entitySystem.Component;
 import org.terasology.math.Region3i;
 import org.terasology.math.TeraMath;
-import org.terasology.math.geom.BaseVector2i;
+import org.terasology.math.geom.Rect2i;
 import org.terasology.math.geom.Vector2i;
 import org.terasology.rendering.nui.properties.Range;
 import org.terasology.utilities.procedural.Noise;
@@ -69,16 +70,20 @@ public class SiteFacetProvider implements ConfigurableFacetProvider {
         SiteFacet siteFacet = new SiteFacet(coreReg, border);
 
         if (roughnessFacet.getMeanDeviation() < 0.3f && roughnessFacet.getMeanDeviation() > 0
-                && resourceFacet.getResourceSum(ResourceType.GRASS.toString()) > 750) {
-            BaseVector2i minPos = new Vector2i();
-            float minDev = 10;
-            for (BaseVector2i pos : roughnessFacet.getGridWorldRegion().contents()) {
-                float currentDev = roughnessFacet.getWorld(pos);
-                if (currentDev < minDev && currentDev > 0) {
-                    minDev = currentDev;
-                    minPos = pos;
+                && resourceFacet.getResourceSum(ResourceType.GRASS) > 750) {
+            //The site is placed at the world position of the smoothest cell. Edge cells can lie just outside of the region
+            GridIndex gridIndex = roughnessFacet.getGridIndex();
+            Rect2i worldRegion = roughnessFacet.getWorldRegion();
+            Vector2i minPos = new Vector2i();
+            float[] minDev = {10};
+            roughnessFacet.forEachCell((gridX, gridY, currentDev) -> {
+                int worldX = gridIndex.toWorldX(gridX);
+                int worldY = gridIndex.toWorldY(gridY);
+                if (currentDev < minDev[0] && currentDev > 0 && worldRegion.contains(worldX, worldY)) {
+                    minDev[0] = currentDev;
+                    minPos.set(worldX, worldY);
                 }
-            }
+            });
 
             int population = TeraMath.fastAbs(Math.round(sizeNoiseGen.noise(minPos.getX(), minPos.getY())
                     * (SettlementConstants.MAX_POPULATIONSIZE - SettlementConstants.MIN_POPULATIONSIZE))) + SettlementConstants.MIN_POPULATIONSIZE;
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.utilities;
+
+import org.terasology.math.geom.Vector2i;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+
+/**
+ * Encodes and decodes the String keys of the persisted coordinate maps without regular expressions.
+ * Keys keep the "(x, y)" / "(x, y, z)" format of the vectors' toString, so saved components stay readable;
+ * whitespace is optional when parsing. In memory, 2D coordinates are packed into a single long.
+ */
+public final class CoordinateKeys {
+
+    private CoordinateKeys() { }
+
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    public static int unpackX(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int unpackY(long key) {
+        return (int) key;
+    }
+
+    public static String toKey(int x, int y) {
+        return new StringBuilder(24).append('(').append(x).append(", ").append(y).append(')').toString();
+    }
+
+    public static String toKey(int x, int y, int z) {
+        return new StringBuilder(36).append('(').append(x).append(", ").append(y).append(", ").append(z).append(')').toString();
+    }
+
+    /**
+     * @return the packed coordinates of a 2D key
+     * @throws IllegalArgumentException if the key is malformed
+     */
+    public static long parse2i(String key) {
+        int[] cursor = {expect(key, 0, '(')};
+        int x = parseInt(key, cursor);
+        cursor[0] = expect(key, cursor[0], ',');
+        int y = parseInt(key, cursor);
+        expectEnd(key, cursor[0]);
+        return pack(x, y);
+    }
+
+    public static Vector2i parseVector2i(String key) {
+        long packed = parse2i(key);
+        return new Vector2i(unpackX(packed), unpackY(packed));
+    }
+
+    /**
+     * Parses a 3D key into the given vector.
+     * @return {@code out}
+     * @throws IllegalArgumentException if the key is malformed
+     */
+    public static Vector3i parseVector3i(String key, Vector3i out) {
+        int[] cursor = {expect(key, 0, '(')};
+        int x = parseInt(key, cursor);
+        cursor[0] = expect(key, cursor[0], ',');
+        int y = parseInt(key, cursor);
+        cursor[0] = expect(key, cursor[0], ',');
+        int z = parseInt(key, cursor);
+        expectEnd(key, cursor[0]);
+        out.set(x, y, z);
+        return out;
+    }
+
+    public static Vector3i parseVector3i(String key) {
+        return parseVector3i(key, new Vector3i());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the key is malformed
+     */
+    public static Vector3f parseVector3f(String key) {
+        int open = expect(key, 0, '(');
+        int close = key.lastIndexOf(')');
+        if (close < open || skipWhitespace(key, close + 1) != key.length()) {
+            throw malformed(key);
+        }
+        int firstComma = key.indexOf(',', open);
+        int secondComma = firstComma < 0 ? -1 : key.indexOf(',', firstComma + 1);
+        if (secondComma < 0 || secondComma > close || key.lastIndexOf(',', close) != secondComma) {
+            throw malformed(key);
+        }
+        try {
+            return new Vector3f(Float.parseFloat(key.substring(open, firstComma).trim()),
+                    Float.parseFloat(key.substring(firstComma + 1, secondComma).trim()),
+                    Float.parseFloat(key.substring(secondComma + 1, close).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed coordinate key: " + key, e);
+        }
+    }
+
+    private static int parseInt(String key, int[] cursor) {
+        int i = skipWhitespace(key, cursor[0]);
+        boolean negative = i < key.length() && key.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        int start = i;
+        long value = 0;
+        while (i < key.length() && key.charAt(i) >= '0' && key.charAt(i) <= '9') {
+            value = value * 10 + (key.charAt(i) - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw malformed(key);
+            }
+            i++;
+        }
+        if (i == start || (!negative && value > Integer.MAX_VALUE)) {
+            throw malformed(key);
+        }
+        cursor[0] = i;
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * @return the position after the expected character
+     */
+    private static int expect(String key, int position, char expected) {
+        int i = skipWhitespace(key, position);
+        if (i >= key.length() || key.charAt(i) != expected) {
+            throw malformed(key);
+        }
+        return i + 1;
+    }
+
+    private static int expectEnd(String key, int position) {
+        int end = skipWhitespace(key, expect(key, position, ')'));
+        if (end != key.length()) {
+            throw malformed(key);
+        }
+        return end;
+    }
+
+    private static int skipWhitespace(String key, int position) {
+        int i = position;
+        while (i < key.length() && Character.isWhitespace(key.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static IllegalArgumentException malformed(String key) {
+        return new IllegalArgumentException("Malformed coordinate key: " + key);
+    }
+}
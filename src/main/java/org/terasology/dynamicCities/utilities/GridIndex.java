@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.utilities;
+
+import org.terasology.math.geom.BaseVector2i;
+import org.terasology.math.geom.Rect2i;
+import org.terasology.math.geom.Vector2i;
+
+/**
+ * Index calculations for a coarse grid laid over a larger region, as used by the grid facets and their components.
+ * Grid cells are stored row by row over the grid world region. Conversions use integer arithmetic only and do not
+ * allocate; the checked variants throw an {@link IllegalArgumentException} like the former Vector2i based ones.
+ */
+public final class GridIndex {
+
+    private final int gridSize;
+    private final int centerX;
+    private final int centerY;
+    private final Rect2i worldRegion;
+    //Null if relative positions are only checked against the grid
+    private final Rect2i relativeRegion;
+    private final Rect2i gridWorldRegion;
+    private final Rect2i gridRelativeRegion;
+
+    private final int gridWorldMinX;
+    private final int gridWorldMinY;
+    private final int gridWorldSizeX;
+    private final int gridRelativeMinX;
+    private final int gridRelativeMinY;
+    private final int gridRelativeSizeX;
+
+    public GridIndex(Rect2i worldRegion, Rect2i relativeRegion, Rect2i gridWorldRegion, Rect2i gridRelativeRegion,
+                     BaseVector2i center, int gridSize) {
+        this.gridSize = gridSize;
+        this.centerX = center.x();
+        this.centerY = center.y();
+        this.worldRegion = worldRegion;
+        this.relativeRegion = relativeRegion;
+        this.gridWorldRegion = gridWorldRegion;
+        this.gridRelativeRegion = gridRelativeRegion;
+        gridWorldMinX = gridWorldRegion.minX();
+        gridWorldMinY = gridWorldRegion.minY();
+        gridWorldSizeX = gridWorldRegion.sizeX();
+        gridRelativeMinX = gridRelativeRegion.minX();
+        gridRelativeMinY = gridRelativeRegion.minY();
+        gridRelativeSizeX = gridRelativeRegion.sizeX();
+    }
+
+    /**
+     * Same as {@code Math.round((float) value / gridSize)}, in integer arithmetic.
+     */
+    public int toGrid(int value) {
+        return Math.floorDiv(2 * value + gridSize, 2 * gridSize);
+    }
+
+    public int toWorldGridX(int worldX) {
+        return centerX + toGrid(worldX - centerX);
+    }
+
+    public int toWorldGridY(int worldY) {
+        return centerY + toGrid(worldY - centerY);
+    }
+
+    public int toWorldX(int gridX) {
+        return centerX + (gridX - centerX) * gridSize;
+    }
+
+    public int toWorldY(int gridY) {
+        return centerY + (gridY - centerY) * gridSize;
+    }
+
+    /**
+     * @return the world position of the world grid point
+     */
+    public Vector2i worldPoint(int gridX, int gridY) {
+        checkBounds(gridWorldRegion, gridX, gridY);
+        int x = toWorldX(gridX);
+        int y = toWorldY(gridY);
+        checkBounds(worldRegion, x, y);
+        return new Vector2i(x, y);
+    }
+
+    /**
+     * @return the relative grid point of the cell containing the relative position
+     */
+    public Vector2i relativeGridPoint(int x, int y) {
+        if (relativeRegion != null) {
+            checkBounds(relativeRegion, x, y);
+        }
+        int gridX = toGrid(x);
+        int gridY = toGrid(y);
+        checkBounds(gridRelativeRegion, gridX, gridY);
+        return new Vector2i(gridX, gridY);
+    }
+
+    /**
+     * @return the world grid point of the cell containing the world position
+     */
+    public Vector2i worldGridPoint(int x, int y) {
+        checkBounds(worldRegion, x, y);
+        int gridX = toWorldGridX(x);
+        int gridY = toWorldGridY(y);
+        checkBounds(gridWorldRegion, gridX, gridY);
+        return new Vector2i(gridX, gridY);
+    }
+
+    /**
+     * @return the index of the cell containing the world position
+     */
+    public int worldIndex(int x, int y) {
+        checkBounds(worldRegion, x, y);
+        return worldGridIndex(toWorldGridX(x), toWorldGridY(y));
+    }
+
+    /**
+     * @return the index of the cell at the world grid point
+     */
+    public int worldGridIndex(int gridX, int gridY) {
+        checkBounds(gridWorldRegion, gridX, gridY);
+        return uncheckedWorldGridIndex(gridX, gridY);
+    }
+
+    /**
+     * Index of the cell at the world grid point, without any bounds checks.
+     */
+    public int uncheckedWorldGridIndex(int gridX, int gridY) {
+        return gridX - gridWorldMinX + gridWorldSizeX * (gridY - gridWorldMinY);
+    }
+
+    /**
+     * @return the index of the cell containing the relative position, laid out over the relative grid
+     */
+    public int relativeIndex(int x, int y) {
+        if (relativeRegion != null) {
+            checkBounds(relativeRegion, x, y);
+        }
+        return relativeGridIndex(toGrid(x), toGrid(y));
+    }
+
+    /**
+     * @return the index of the cell at the relative grid point
+     */
+    public int relativeGridIndex(int gridX, int gridY) {
+        checkBounds(gridRelativeRegion, gridX, gridY);
+        return gridX - gridRelativeMinX + gridRelativeSizeX * (gridY - gridRelativeMinY);
+    }
+
+    /**
+     * @return the index of the first cell in the given row of the world grid, the row continues for {@link #getSizeX()}
+     * cells
+     */
+    public int rowStart(int gridY) {
+        return gridWorldSizeX * (gridY - gridWorldMinY);
+    }
+
+    /**
+     * @return the world grid x coordinate of the cell at the given index
+     */
+    public int cellGridX(int index) {
+        return gridWorldMinX + index % gridWorldSizeX;
+    }
+
+    /**
+     * @return the world grid y coordinate of the cell at the given index
+     */
+    public int cellGridY(int index) {
+        return gridWorldMinY + index / gridWorldSizeX;
+    }
+
+    public int getSizeX() {
+        return gridWorldSizeX;
+    }
+
+    public int getSizeY() {
+        return gridWorldRegion.sizeY();
+    }
+
+    public int getCellCount() {
+        return gridWorldRegion.area();
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    private static void checkBounds(Rect2i region, int x, int y) {
+        if (!region.contains(x, y)) {
+            throw new IllegalArgumentException(String.format("Out of bounds: (%d, %d) for region %s", x, y, region.toString()));
+        }
+    }
+}
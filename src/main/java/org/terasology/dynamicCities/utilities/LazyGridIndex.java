@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.utilities;
+
+import org.terasology.math.geom.BaseVector2i;
+import org.terasology.math.geom.Rect2i;
+
+/**
+ * Holds the {@link GridIndex} of a facet component, which persists its grid as plain region fields.
+ * The index is built from those fields on first use and kept from then on. GridIndex is immutable and the field is
+ * volatile, so components read from other threads only ever see a complete index.
+ */
+public final class LazyGridIndex {
+
+    private volatile GridIndex index;
+
+    public GridIndex get(Rect2i worldRegion, Rect2i relativeRegion, Rect2i gridWorldRegion, Rect2i gridRelativeRegion,
+                         BaseVector2i center, int gridSize) {
+        GridIndex result = index;
+        if (result == null) {
+            result = new GridIndex(worldRegion, relativeRegion, gridWorldRegion, gridRelativeRegion, center, gridSize);
+            index = result;
+        }
+        return result;
+    }
+}
@@ -29,39 +29,25 @@ import java.util.Set;
 
 public class Toolbox {
 
+    /**
+     * @throws IllegalArgumentException if the string is not a 3D coordinate key, see {@link CoordinateKeys}
+     */
     public static Vector3f stringToVector3f(String string) {
-        if (string.matches("\\(-?\\d+\\.\\d+,\\s-?\\d+\\.\\d+,\\s-?\\d+\\.\\d+\\)")) {
-            String[] numbers = string.split("[,()]");
-            float x = Float.parseFloat(numbers[1]);
-            float y = Float.parseFloat(numbers[2]);
-            float z = Float.parseFloat(numbers[3]);
-            return new Vector3f(x, y, z);
-        } else {
-            throw new NullPointerException();
-        }
+        return CoordinateKeys.parseVector3f(string);
     }
 
+    /**
+     * @throws IllegalArgumentException if the string is not a 3D coordinate key, see {@link CoordinateKeys}
+     */
     public static Vector3i stringToVector3i(String string) {
-        if (string.matches("\\(-?\\d+,\\s-?\\d+,\\s-?\\d+\\)")) {
-            String[] numbers = string.split("[,()\\s]");
-            int x = Integer.parseInt(numbers[1]);
-            int y = Integer.parseInt(numbers[3]);
-            int z = Integer.parseInt(numbers[5]);
-            return new Vector3i(x, y, z);
-        } else {
-            throw new NullPointerException();
-        }
+        return CoordinateKeys.parseVector3i(string);
     }
 
+    /**
+     * @throws IllegalArgumentException if the string is not a 2D coordinate key, see {@link CoordinateKeys}
+     */
     public static Vector2i stringToVector2i(String string) {
-        if (string.matches("\\(-?\\d+,\\s-?\\d+\\)")) {
-            String[] numbers = string.split("[,()\\s]");
-            int x = Integer.parseInt(numbers[1]);
-            int y = Integer.parseInt(numbers[3]);
-            return new Vector2i(x, y);
-        } else {
-            throw new NullPointerException();
-        }
+        return CoordinateKeys.parseVector2i(string);
     }
 
     public static float distance(float[] a, float[] b) {
@@ -19,6 +19,7 @@ import org.terasology.core.world.CoreBiome;
 import org.terasology.core.world.generator.facets.BiomeFacet;
 import org.terasology.dynamicCities.facets.ResourceFacet;
 import org.terasology.dynamicCities.rasterizer.CompatibleRasterizer;
+import org.terasology.dynamicCities.rasterizer.ResourceAccumulator;
 import org.terasology.math.TeraMath;
 import org.terasology.math.geom.Vector2i;
 import org.terasology.math.geom.Vector3i;
@@ -47,6 +48,7 @@ public class SolidRasterizer extends CompatibleRasterizer {
         ResourceFacet resourceFacet = chunkRegion.getFacet(ResourceFacet.class);
         SeaLevelFacet seaLevelFacet = chunkRegion.getFacet(SeaLevelFacet.class);
         int seaLevel = seaLevelFacet.getSeaLevel();
+        ResourceAccumulator resources = new ResourceAccumulator();
 
         Vector2i pos2d = new Vector2i();
         for (Vector3i pos : ChunkConstants.CHUNK_REGION) {
@@ -58,21 +60,22 @@ public class SolidRasterizer extends CompatibleRasterizer {
             float density = solidityFacet.get(pos);
 
             if (density >= 32) {
-                setBlock(chunk, stone, pos, resourceFacet);
+                setBlock(chunk, stone, pos, resources);
             } else if (density >= 0) {
                 int depth = TeraMath.floorToInt(surfaceFacet.get(pos2d)) - posY;
                 Block block = getSurfaceBlock(depth, posY, biome, seaLevel);
-                setBlock(chunk, block, pos, resourceFacet);
+                setBlock(chunk, block, pos, resources);
             } else {
                 // fill up terrain up to sealevel height with water or ice
                 if (posY == seaLevel && CoreBiome.SNOW == biome) {
-                    setBlock(chunk, ice, pos, resourceFacet);
+                    setBlock(chunk, ice, pos, resources);
                 } else if (posY <= seaLevel) {         // either OCEAN or SNOW
-                    setBlock(chunk, water, pos, resourceFacet);
-                    setLiquid(chunk, waterLiquid, pos, resourceFacet);
+                    setBlock(chunk, water, pos, resources);
+                    setLiquid(chunk, waterLiquid, pos, resources);
                 }
             }
         }
+        resources.flush(resourceFacet);
     }
 
     private Block getSurfaceBlock(int depth, int height, Biome type, int seaLevel) {
@@ -16,6 +16,7 @@
 package org.terasology.dynamicCities.world;
 
 import org.terasology.dynamicCities.facets.ResourceFacet;
+import org.terasology.dynamicCities.rasterizer.ResourceAccumulator;
 import org.terasology.dynamicCities.world.trees.TreeFacet;
 import org.terasology.dynamicCities.world.trees.TreeGenerator;
 import org.terasology.math.Region3i;
@@ -25,6 +26,7 @@ import org.terasology.registry.CoreRegistry;
 import org.terasology.utilities.random.FastRandom;
 import org.terasology.utilities.random.Random;
 import org.terasology.world.block.BlockManager;
+import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.CoreChunk;
 import org.terasology.world.generation.Region;
 import org.terasology.world.generation.WorldRasterizer;
@@ -50,13 +52,25 @@ public class TreeRasterizer implements WorldRasterizer {
     public void generateChunk(CoreChunk chunk, Region chunkRegion) {
         TreeFacet facet = chunkRegion.getFacet(TreeFacet.class);
         ResourceFacet resourceFacet = chunkRegion.getFacet(ResourceFacet.class);
+        ResourceAccumulator resources = new ResourceAccumulator();
         for (Map.Entry<BaseVector3i, TreeGenerator> entry : facet.getRelativeEntries().entrySet()) {
             BaseVector3i pos = entry.getKey();
             TreeGenerator treeGen = entry.getValue();
-            int seed = relativeToWorld(facet, pos).hashCode();
+            if (!intersectsChunk(treeGen.getBounds(), pos)) {
+                continue;
+            }
+            //Every tree is generated with seed 0, as TreeFacetComponent records. Other seeds would reshape trees
+            //at the seams of chunks generated before the change
             Random random = new FastRandom(0);
-            treeGen.generate(blockManager, chunk, random, pos.x(), pos.y(), pos.z(), resourceFacet);
+            treeGen.generate(blockManager, chunk, random, pos.x(), pos.y(), pos.z(), resources);
         }
+        resources.flush(resourceFacet);
+    }
+
+    private static boolean intersectsChunk(Region3i bounds, BaseVector3i pos) {
+        return pos.x() + bounds.maxX() >= 0 && pos.x() + bounds.minX() < ChunkConstants.SIZE_X
+                && pos.y() + bounds.maxY() >= 0 && pos.y() + bounds.minY() < ChunkConstants.SIZE_Y
+                && pos.z() + bounds.maxZ() >= 0 && pos.z() + bounds.minZ() < ChunkConstants.SIZE_Z;
     }
 
     // TODO: JAVA8 - move the two conversion methods from SparseFacet3D to default methods in WorldFacet3D
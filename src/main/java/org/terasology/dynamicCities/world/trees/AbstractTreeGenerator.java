@@ -16,8 +16,8 @@
 
 package org.terasology.dynamicCities.world.trees;
 
-import org.terasology.dynamicCities.facets.ResourceFacet;
 import org.terasology.dynamicCities.rasterizer.CompatibleRasterizer;
+import org.terasology.dynamicCities.rasterizer.ResourceAccumulator;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.world.block.Block;
 import org.terasology.world.chunks.ChunkConstants;
@@ -29,9 +29,23 @@ import org.terasology.world.chunks.CoreChunk;
  */
 public abstract class AbstractTreeGenerator extends CompatibleRasterizer implements TreeGenerator {
 
-    protected void safelySetBlock(CoreChunk chunk, int x, int y, int z, Block block, ResourceFacet resourceFacet) {
+    private TreeSpecies species;
+
+    /**
+     * @return the species this generator was created for by {@link Trees}, or null
+     */
+    public TreeSpecies getSpecies() {
+        return species;
+    }
+
+    public AbstractTreeGenerator setSpecies(TreeSpecies species) {
+        this.species = species;
+        return this;
+    }
+
+    protected void safelySetBlock(CoreChunk chunk, int x, int y, int z, Block block, ResourceAccumulator resources) {
         if (ChunkConstants.CHUNK_REGION.encompasses(x, y, z)) {
-            setBlock(chunk, block, new Vector3i(x, y, z), resourceFacet);
+            setBlock(chunk, block, new Vector3i(x, y, z), resources);
         }
     }
 }
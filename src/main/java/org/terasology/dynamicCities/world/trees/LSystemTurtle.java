@@ -0,0 +1,262 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.world.trees;
+
+import org.terasology.math.LSystemRule;
+import org.terasology.math.TeraMath;
+import org.terasology.math.geom.Matrix4f;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.utilities.random.Random;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Walks an L-system tree without recursion. Rotations are kept as 3x3 matrices in plain float arrays and branch states
+ * live on an explicit stack, so a walk does not allocate once the stacks have grown to the depth of the tree.
+ * The rotations for a new angle offset are computed into preallocated arrays.
+ * Produces the same positions as the former recursive walk, including its random sequence.
+ * Instances are not thread safe.
+ */
+public class LSystemTurtle {
+
+    @FunctionalInterface
+    public interface SegmentVisitor {
+        /**
+         * Called for every trunk segment, with the position relative to the tree base.
+         * @param leaves true if the segment is deep enough in the tree to carry leaves
+         */
+        void visit(int x, int y, int z, boolean leaves);
+    }
+
+    private static final int ROTATE_Z = 0;
+    private static final int ROTATE_NEG_Z = 1;
+    private static final int ROTATE_Y = 2;
+    private static final int ROTATE_NEG_Y = 3;
+    private static final int ROTATE_X = 4;
+    private static final int ROTATE_NEG_X = 5;
+
+    //Position followed by the row major rotation
+    private static final int STATE_SIZE = 12;
+    private static final float[] INITIAL_ROTATION = new float[9];
+
+    //Rotation axes, never modified
+    private static final Vector3f AXIS_X = new Vector3f(1f, 0f, 0f);
+    private static final Vector3f AXIS_NEG_X = new Vector3f(-1f, 0f, 0f);
+    private static final Vector3f AXIS_Y = new Vector3f(0f, 1f, 0f);
+    private static final Vector3f AXIS_NEG_Y = new Vector3f(0f, -1f, 0f);
+    private static final Vector3f AXIS_Z = new Vector3f(0f, 0f, 1f);
+    private static final Vector3f AXIS_NEG_Z = new Vector3f(0f, 0f, -1f);
+
+    static {
+        toRotation(AXIS_Z, (float) Math.PI / 2f, new Quat4f(), new Matrix4f(), INITIAL_ROTATION);
+    }
+
+    private final int maxDepth;
+    private final float angle;
+    private final Map<Character, LSystemRule> ruleSet;
+
+    private final float[][] rotations = new float[6][9];
+    private float rotationsOffset = Float.NaN;
+    private final Quat4f quat = new Quat4f();
+    private final Matrix4f matrix = new Matrix4f();
+
+    private final float[] state = new float[STATE_SIZE];
+    private final float[] product = new float[9];
+
+    //Saved states of the open branches
+    private float[] stateStack = new float[STATE_SIZE * 8];
+    private int stateTop;
+
+    //One frame per axiom being read, a branch frame shares its axiom with the frame below
+    private CharSequence[] frameAxioms = new CharSequence[16];
+    private int[] frameIndices = new int[16];
+    private int[] frameDepths = new int[16];
+    private boolean[] frameBranches = new boolean[16];
+    private int frameTop;
+
+    public LSystemTurtle(int maxDepth, float angle, Map<Character, LSystemRule> ruleSet) {
+        this.maxDepth = maxDepth;
+        this.angle = angle;
+        this.ruleSet = ruleSet;
+        toRotation(AXIS_X, angle, quat, matrix, rotations[ROTATE_X]);
+        toRotation(AXIS_NEG_X, angle, quat, matrix, rotations[ROTATE_NEG_X]);
+    }
+
+    public void walk(Random rand, float angleOffset, CharSequence axiom, SegmentVisitor visitor) {
+        prepareRotations(angleOffset);
+        Arrays.fill(state, 0, 3, 0f);
+        System.arraycopy(INITIAL_ROTATION, 0, state, 3, 9);
+        stateTop = 0;
+        frameTop = 0;
+        pushFrame(axiom, 0, 0, false);
+
+        while (frameTop > 0) {
+            int frame = frameTop - 1;
+            CharSequence current = frameAxioms[frame];
+            int index = frameIndices[frame];
+            int depth = frameDepths[frame];
+            if (index >= current.length()) {
+                popFrame();
+                continue;
+            }
+            char c = current.charAt(index);
+            frameIndices[frame] = index + 1;
+            switch (c) {
+                case 'G':
+                case 'F':
+                    visitor.visit((int) state[0], (int) state[1], (int) state[2], depth > 1);
+                    //The heading is the rotated x axis, i.e. the first column of the rotation
+                    state[0] += state[3];
+                    state[1] += state[6];
+                    state[2] += state[9];
+                    break;
+                case '[':
+                    pushState();
+                    pushFrame(current, index + 1, depth, true);
+                    break;
+                case ']':
+                    popFrame();
+                    break;
+                case '+':
+                    rotate(rotations[ROTATE_Z]);
+                    break;
+                case '-':
+                    rotate(rotations[ROTATE_NEG_Z]);
+                    break;
+                case '&':
+                    rotate(rotations[ROTATE_Y]);
+                    break;
+                case '^':
+                    rotate(rotations[ROTATE_NEG_Y]);
+                    break;
+                case '*':
+                    rotate(rotations[ROTATE_X]);
+                    break;
+                case '/':
+                    rotate(rotations[ROTATE_NEG_X]);
+                    break;
+                default:
+                    // If we have already reached the maximum depth, don't ever bother to lookup in the map
+                    if (depth == maxDepth - 1) {
+                        break;
+                    }
+                    LSystemRule rule = ruleSet.get(c);
+                    if (rule == null) {
+                        break;
+                    }
+
+                    float weightedFailureProbability = TeraMath.pow(1f - rule.getProbability(), maxDepth - depth);
+                    if (rand.nextFloat() < weightedFailureProbability) {
+                        break;
+                    }
+
+                    pushFrame(rule.getAxiom(), 0, depth + 1, false);
+            }
+        }
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public float getAngle() {
+        return angle;
+    }
+
+    private void prepareRotations(float angleOffset) {
+        if (Float.compare(angleOffset, rotationsOffset) == 0) {
+            return;
+        }
+        float offsetAngle = angle + angleOffset;
+        toRotation(AXIS_Z, offsetAngle, quat, matrix, rotations[ROTATE_Z]);
+        toRotation(AXIS_NEG_Z, offsetAngle, quat, matrix, rotations[ROTATE_NEG_Z]);
+        toRotation(AXIS_Y, offsetAngle, quat, matrix, rotations[ROTATE_Y]);
+        toRotation(AXIS_NEG_Y, offsetAngle, quat, matrix, rotations[ROTATE_NEG_Y]);
+        rotationsOffset = angleOffset;
+    }
+
+    /**
+     * Multiplies the current rotation by the given one from the right, in the same order as {@link Matrix4f#mul}.
+     */
+    private void rotate(float[] r) {
+        for (int row = 0; row < 3; row++) {
+            float a0 = state[3 + row * 3];
+            float a1 = state[4 + row * 3];
+            float a2 = state[5 + row * 3];
+            for (int col = 0; col < 3; col++) {
+                product[row * 3 + col] = a0 * r[col] + a1 * r[3 + col] + a2 * r[6 + col];
+            }
+        }
+        System.arraycopy(product, 0, state, 3, 9);
+    }
+
+    private void pushState() {
+        if (stateTop + STATE_SIZE > stateStack.length) {
+            stateStack = Arrays.copyOf(stateStack, stateStack.length * 2);
+        }
+        System.arraycopy(state, 0, stateStack, stateTop, STATE_SIZE);
+        stateTop += STATE_SIZE;
+    }
+
+    private void pushFrame(CharSequence axiom, int index, int depth, boolean branch) {
+        if (frameTop == frameAxioms.length) {
+            int length = frameTop * 2;
+            frameAxioms = Arrays.copyOf(frameAxioms, length);
+            frameIndices = Arrays.copyOf(frameIndices, length);
+            frameDepths = Arrays.copyOf(frameDepths, length);
+            frameBranches = Arrays.copyOf(frameBranches, length);
+        }
+        frameAxioms[frameTop] = axiom;
+        frameIndices[frameTop] = index;
+        frameDepths[frameTop] = depth;
+        frameBranches[frameTop] = branch;
+        frameTop++;
+    }
+
+    /**
+     * Leaves the current axiom. A branch hands its read position back to the frame it was opened in and restores the
+     * state from before the branch, a rule expansion keeps the state it left behind.
+     */
+    private void popFrame() {
+        frameTop--;
+        if (frameBranches[frameTop]) {
+            frameIndices[frameTop - 1] = frameIndices[frameTop];
+            stateTop -= STATE_SIZE;
+            System.arraycopy(stateStack, stateTop, state, 0, STATE_SIZE);
+        }
+        frameAxioms[frameTop] = null;
+    }
+
+    /**
+     * Writes the rotation around the axis into the given array, through the same quaternion to matrix conversion as
+     * {@code new Matrix4f(new Quat4f(axis, angle), Vector3f.ZERO, 1.0f)} but on the given scratch objects.
+     */
+    private static void toRotation(Vector3f axis, float angle, Quat4f quat, Matrix4f matrix, float[] target) {
+        quat.set(axis, angle);
+        matrix.set(quat, Vector3f.ZERO, 1.0f);
+        target[0] = matrix.m00;
+        target[1] = matrix.m01;
+        target[2] = matrix.m02;
+        target[3] = matrix.m10;
+        target[4] = matrix.m11;
+        target[5] = matrix.m12;
+        target[6] = matrix.m20;
+        target[7] = matrix.m21;
+        target[8] = matrix.m22;
+    }
+}
@@ -16,28 +16,34 @@
 
 package org.terasology.dynamicCities.world.trees;
 
-import org.terasology.dynamicCities.facets.ResourceFacet;
+import org.terasology.dynamicCities.rasterizer.ResourceAccumulator;
 import org.terasology.math.LSystemRule;
-import org.terasology.math.TeraMath;
-import org.terasology.math.geom.Matrix4f;
-import org.terasology.math.geom.Quat4f;
-import org.terasology.math.geom.Vector3f;
-import org.terasology.utilities.collection.CharSequenceIterator;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
 import org.terasology.utilities.random.Random;
 import org.terasology.world.block.Block;
+import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.CoreChunk;
 
 import java.util.Map;
 
 /**
- * Encapsulates the recursive algorithm for the generator of trees
+ * Rasterizes L-system trees into a chunk, walking the axiom with a {@link LSystemTurtle} per thread.
  */
 
 public class RecursiveTreeGeneratorLSystem {
 
+    //Indices into the state of computeBounds
+    private static final int STEPS = 0;
+    private static final int TURNED_STEPS = 1;
+    private static final int TURNED = 2;
+    private static final int MAX_STEPS = 3;
+    private static final int MAX_TURNED_STEPS = 4;
+
     private int maxDepth;
     private float angle;
     private Map<Character, LSystemRule> ruleSet;
+    private final ThreadLocal<LSystemTurtle> turtles = ThreadLocal.withInitial(() -> new LSystemTurtle(maxDepth, angle, ruleSet));
 
     public RecursiveTreeGeneratorLSystem(int maxDepth, float angle, Map<Character, LSystemRule> ruleSet) {
         this.angle = angle;
@@ -45,96 +51,101 @@ public class RecursiveTreeGeneratorLSystem {
         this.ruleSet = ruleSet;
     }
 
-    public void recurse(CoreChunk view, Random rand, int posX, int posY, int posZ, float angleOffset,
-                        CharSequenceIterator axiomIterator, Vector3f position, Matrix4f rotation,
-                        Block bark, Block leaf, int depth, AbstractTreeGenerator treeGenerator, ResourceFacet resourceFacet) {
-        Matrix4f tempRotation = new Matrix4f();
-        while (axiomIterator.hasNext()) {
-            char c = axiomIterator.nextChar();
-            switch (c) {
-                case 'G':
-                case 'F':
-                    // Tree trunk
-
-                    treeGenerator.safelySetBlock(view, posX + (int) position.x + 1, posY + (int) position.y, posZ + (int) position.z, bark, resourceFacet);
-                    treeGenerator.safelySetBlock(view, posX + (int) position.x - 1, posY + (int) position.y, posZ + (int) position.z, bark, resourceFacet);
-                    treeGenerator.safelySetBlock(view, posX + (int) position.x, posY + (int) position.y, posZ + (int) position.z + 1, bark, resourceFacet);
-                    treeGenerator.safelySetBlock(view, posX + (int) position.x, posY + (int) position.y, posZ + (int) position.z - 1, bark, resourceFacet);
-
-                    // Generate leaves
-                    if (depth > 1) {
-                        int size = 1;
-
-                        for (int x = -size; x <= size; x++) {
-                            for (int y = -size; y <= size; y++) {
-                                for (int z = -size; z <= size; z++) {
-                                    if (Math.abs(x) == size && Math.abs(y) == size && Math.abs(z) == size) {
-                                        continue;
-                                    }
-
-                                    treeGenerator.safelySetBlock(view, posX + (int) position.x + x + 1, posY + (int) position.y + y, posZ + z + (int) position.z, leaf, resourceFacet);
-                                    treeGenerator.safelySetBlock(view, posX + (int) position.x + x - 1, posY + (int) position.y + y, posZ + z + (int) position.z, leaf, resourceFacet);
-                                    treeGenerator.safelySetBlock(view, posX + (int) position.x + x, posY + (int) position.y + y, posZ + z + (int) position.z + 1, leaf, resourceFacet);
-                                    treeGenerator.safelySetBlock(view, posX + (int) position.x + x, posY + (int) position.y + y, posZ + z + (int) position.z - 1, leaf, resourceFacet);
-                                }
+    public void generate(CoreChunk view, Random rand, int posX, int posY, int posZ, float angleOffset, String axiom,
+                         Block bark, Block leaf, AbstractTreeGenerator treeGenerator, ResourceAccumulator resources) {
+        turtles.get().walk(rand, angleOffset, axiom, (x, y, z, leaves) -> {
+            //Skip segments whose trunk and leaves lie outside of the chunk
+            int reach = leaves ? 2 : 1;
+            int reachY = leaves ? 1 : 0;
+            if (posX + x + reach < 0 || posX + x - reach >= ChunkConstants.SIZE_X
+                    || posY + y + reachY < 0 || posY + y - reachY >= ChunkConstants.SIZE_Y
+                    || posZ + z + reach < 0 || posZ + z - reach >= ChunkConstants.SIZE_Z) {
+                return;
+            }
+
+            // Tree trunk
+            treeGenerator.safelySetBlock(view, posX + x + 1, posY + y, posZ + z, bark, resources);
+            treeGenerator.safelySetBlock(view, posX + x - 1, posY + y, posZ + z, bark, resources);
+            treeGenerator.safelySetBlock(view, posX + x, posY + y, posZ + z + 1, bark, resources);
+            treeGenerator.safelySetBlock(view, posX + x, posY + y, posZ + z - 1, bark, resources);
+
+            // Generate leaves
+            if (leaves) {
+                int size = 1;
+
+                for (int dx = -size; dx <= size; dx++) {
+                    for (int dy = -size; dy <= size; dy++) {
+                        for (int dz = -size; dz <= size; dz++) {
+                            if (Math.abs(dx) == size && Math.abs(dy) == size && Math.abs(dz) == size) {
+                                continue;
                             }
+
+                            treeGenerator.safelySetBlock(view, posX + x + dx + 1, posY + y + dy, posZ + z + dz, leaf, resources);
+                            treeGenerator.safelySetBlock(view, posX + x + dx - 1, posY + y + dy, posZ + z + dz, leaf, resources);
+                            treeGenerator.safelySetBlock(view, posX + x + dx, posY + y + dy, posZ + z + dz + 1, leaf, resources);
+                            treeGenerator.safelySetBlock(view, posX + x + dx, posY + y + dy, posZ + z + dz - 1, leaf, resources);
                         }
                     }
+                }
+            }
+        });
+    }
 
-                    Vector3f dir = new Vector3f(1f, 0f, 0f);
-                    rotation.transformVector(dir);
+    /**
+     * Computes bounds for every tree the axiom can grow into, assuming that every rule fires.
+     * Trees start out growing straight up, so only the steps made after the first turn can leave the trunk's column.
+     */
+    public Region3i computeBounds(String axiom) {
+        int[] state = new int[5];
+        measure(axiom, 0, 0, state);
+        int horizontal = state[MAX_TURNED_STEPS] + 2;
+        return Region3i.createFromMinMax(new Vector3i(-horizontal, -state[MAX_TURNED_STEPS] - 1, -horizontal),
+                new Vector3i(horizontal, state[MAX_STEPS] + 1, horizontal));
+    }
 
-                    position.add(dir);
+    private int measure(CharSequence axiom, int index, int depth, int[] state) {
+        while (index < axiom.length()) {
+            char c = axiom.charAt(index++);
+            switch (c) {
+                case 'G':
+                case 'F':
+                    state[STEPS]++;
+                    state[TURNED_STEPS] += state[TURNED];
+                    state[MAX_STEPS] = Math.max(state[MAX_STEPS], state[STEPS]);
+                    state[MAX_TURNED_STEPS] = Math.max(state[MAX_TURNED_STEPS], state[TURNED_STEPS]);
                     break;
                 case '[':
-                    recurse(view, rand, posX, posY, posZ, angleOffset, axiomIterator, new Vector3f(position), new Matrix4f(rotation), bark, leaf, depth, treeGenerator, resourceFacet);
+                    int steps = state[STEPS];
+                    int turnedSteps = state[TURNED_STEPS];
+                    int turned = state[TURNED];
+                    index = measure(axiom, index, depth, state);
+                    state[STEPS] = steps;
+                    state[TURNED_STEPS] = turnedSteps;
+                    state[TURNED] = turned;
                     break;
                 case ']':
-                    return;
+                    return index;
                 case '+':
-                    tempRotation = new Matrix4f(new Quat4f(new Vector3f(0f, 0f, 1f), angle + angleOffset), Vector3f.ZERO, 1.0f);
-                    rotation.mul(tempRotation);
-                    break;
                 case '-':
-                    tempRotation = new Matrix4f(new Quat4f(new Vector3f(0f, 0f, -1f), angle + angleOffset), Vector3f.ZERO, 1.0f);
-                    rotation.mul(tempRotation);
-                    break;
                 case '&':
-                    tempRotation = new Matrix4f(new Quat4f(new Vector3f(0f, 1f, 0f), angle + angleOffset), Vector3f.ZERO, 1.0f);
-                    rotation.mul(tempRotation);
-                    break;
                 case '^':
-                    tempRotation = new Matrix4f(new Quat4f(new Vector3f(0f, -1f, 0f), angle + angleOffset), Vector3f.ZERO, 1.0f);
-                    rotation.mul(tempRotation);
-                    break;
                 case '*':
-                    tempRotation = new Matrix4f(new Quat4f(new Vector3f(1f, 0f, 0f), angle), Vector3f.ZERO, 1.0f);
-                    rotation.mul(tempRotation);
-                    break;
                 case '/':
-                    tempRotation = new Matrix4f(new Quat4f(new Vector3f(-1f, 0f, 0f), angle), Vector3f.ZERO, 1.0f);
-                    rotation.mul(tempRotation);
+                    state[TURNED] = 1;
                     break;
                 default:
-                    // If we have already reached the maximum depth, don't ever bother to lookup in the map
                     if (depth == maxDepth - 1) {
                         break;
                     }
                     LSystemRule rule = ruleSet.get(c);
-                    if (rule == null) {
-                        break;
-                    }
-
-                    float weightedFailureProbability = TeraMath.pow(1f - rule.getProbability(), maxDepth - depth);
-                    if (rand.nextFloat() < weightedFailureProbability) {
-                        break;
+                    if (rule != null) {
+                        measure(rule.getAxiom(), 0, depth + 1, state);
                     }
-
-                    recurse(view, rand, posX, posY, posZ, angleOffset, new CharSequenceIterator(rule.getAxiom()),
-                        position, rotation, bark, leaf, depth + 1, treeGenerator, resourceFacet);
             }
         }
+        return index;
     }
+
     public int getMaxDepth() {
         return maxDepth;
     }
@@ -16,7 +16,8 @@
 
 package org.terasology.dynamicCities.world.trees;
 
-import org.terasology.dynamicCities.facets.ResourceFacet;
+import org.terasology.dynamicCities.rasterizer.ResourceAccumulator;
+import org.terasology.math.Region3i;
 import org.terasology.utilities.random.Random;
 import org.terasology.world.block.BlockManager;
 import org.terasology.world.chunks.CoreChunk;
@@ -37,5 +38,10 @@ public interface TreeGenerator {
      * @param posY Relative position on the y-axis (wrt. the chunk)
      * @param posZ Relative position on the z-axis (wrt. the chunk)
      */
-    void generate(BlockManager blockManager, CoreChunk view, Random rand, int posX, int posY, int posZ, ResourceFacet resourceFacet);
+    void generate(BlockManager blockManager, CoreChunk view, Random rand, int posX, int posY, int posZ, ResourceAccumulator resources);
+
+    /**
+     * @return a region containing every block the generator may place, relative to the tree position
+     */
+    Region3i getBounds();
 }
@@ -15,7 +15,9 @@
  */
 package org.terasology.dynamicCities.world.trees;
 
-import org.terasology.dynamicCities.facets.ResourceFacet;
+import org.terasology.dynamicCities.rasterizer.ResourceAccumulator;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
 import org.terasology.utilities.random.Random;
 import org.terasology.world.block.BlockManager;
 import org.terasology.world.block.BlockUri;
@@ -27,15 +29,22 @@ import org.terasology.world.chunks.CoreChunk;
  */
 public class TreeGeneratorCactus extends AbstractTreeGenerator {
 
+    private static final Region3i BOUNDS = Region3i.createFromMinMax(new Vector3i(0, 0, 0), new Vector3i(0, 2, 0));
+
     private BlockUri cactusType;
 
     @Override
-    public void generate(BlockManager blockManager, CoreChunk view, Random rand, int posX, int posY, int posZ, ResourceFacet resourceFacet) {
+    public void generate(BlockManager blockManager, CoreChunk view, Random rand, int posX, int posY, int posZ, ResourceAccumulator resources) {
         for (int y = posY; y < posY + 3; y++) {
-            safelySetBlock(view, posX, y, posZ, blockManager.getBlock(cactusType), resourceFacet);
+            safelySetBlock(view, posX, y, posZ, blockManager.getBlock(cactusType), resources);
         }
     }
 
+    @Override
+    public Region3i getBounds() {
+        return BOUNDS;
+    }
+
     public TreeGenerator setTrunkType(BlockUri b) {
         cactusType = b;
         return this;
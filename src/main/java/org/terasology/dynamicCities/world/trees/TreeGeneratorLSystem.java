@@ -15,12 +15,9 @@
  */
 package org.terasology.dynamicCities.world.trees;
 
-import org.terasology.dynamicCities.facets.ResourceFacet;
+import org.terasology.dynamicCities.rasterizer.ResourceAccumulator;
 import org.terasology.math.LSystemRule;
-import org.terasology.math.geom.Matrix4f;
-import org.terasology.math.geom.Quat4f;
-import org.terasology.math.geom.Vector3f;
-import org.terasology.utilities.collection.CharSequenceIterator;
+import org.terasology.math.Region3i;
 import org.terasology.utilities.random.Random;
 import org.terasology.world.block.Block;
 import org.terasology.world.block.BlockManager;
@@ -45,6 +42,7 @@ public class TreeGeneratorLSystem extends AbstractTreeGenerator {
     /* RULES */
     private final String initialAxiom;
     private RecursiveTreeGeneratorLSystem recursiveGenerator;
+    private final Region3i bounds;
 
     /**
      * Init. a new L-System based tree generator.
@@ -58,20 +56,21 @@ public class TreeGeneratorLSystem extends AbstractTreeGenerator {
         this.initialAxiom = initialAxiom;
 
         recursiveGenerator = new RecursiveTreeGeneratorLSystem(maxDepth, angle, ruleSet);
+        bounds = recursiveGenerator.computeBounds(initialAxiom);
     }
 
     @Override
-    public void generate(BlockManager blockManager, CoreChunk view, Random rand, int posX, int posY, int posZ, ResourceFacet resourceFacet) {
-        Vector3f position = new Vector3f(0f, 0f, 0f);
-
-        Matrix4f rotation = new Matrix4f(new Quat4f(new Vector3f(0f, 0f, 1f), (float) Math.PI / 2f), Vector3f.ZERO, 1.0f);
-
+    public void generate(BlockManager blockManager, CoreChunk view, Random rand, int posX, int posY, int posZ, ResourceAccumulator resources) {
         float angleOffset = rand.nextFloat(-MAX_ANGLE_OFFSET, MAX_ANGLE_OFFSET);
 
         Block bark = blockManager.getBlock(barkType);
         Block leaf = blockManager.getBlock(leafType);
-        recursiveGenerator.recurse(view, rand, posX, posY, posZ, angleOffset, new CharSequenceIterator(initialAxiom),
-                position, rotation, bark, leaf, 0, this, resourceFacet);
+        recursiveGenerator.generate(view, rand, posX, posY, posZ, angleOffset, initialAxiom, bark, leaf, this, resources);
+    }
+
+    @Override
+    public Region3i getBounds() {
+        return bounds;
     }
 
     public TreeGeneratorLSystem setLeafType(BlockUri b) {
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.dynamicCities.world.trees;
+
+import org.terasology.dynamicCities.region.components.TreeGeneratorContainer;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * The tree kinds of {@link Trees}, identified by a stable id.
+ * Region components store only the id and a seed per tree; the generator settings are shared through
+ * {@link #getDefinition()}. Ids are persisted, so new species must be added with new ids.
+ */
+public enum TreeSpecies {
+    OAK(0, Trees::oakTree),
+    OAK_VARIATION(1, Trees::oakVariationTree),
+    PINE(2, Trees::pineTree),
+    BIRCH(3, Trees::birchTree),
+    RED(4, Trees::redTree),
+    CACTUS(5, Trees::cactus);
+
+    private static final TreeSpecies[] BY_ID;
+
+    static {
+        int maxId = 0;
+        for (TreeSpecies species : values()) {
+            maxId = Math.max(maxId, species.id);
+        }
+        BY_ID = new TreeSpecies[maxId + 1];
+        for (TreeSpecies species : values()) {
+            BY_ID[species.id] = species;
+        }
+    }
+
+    private final int id;
+    private final Supplier<TreeGenerator> factory;
+    private TreeGeneratorContainer definition;
+
+    TreeSpecies(int id, Supplier<TreeGenerator> factory) {
+        this.id = id;
+        this.factory = factory;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the shared generator settings of this species, which must not be modified
+     */
+    public synchronized TreeGeneratorContainer getDefinition() {
+        if (definition == null) {
+            definition = createDefinition(factory.get());
+        }
+        return definition;
+    }
+
+    /**
+     * @return the species with the given id or null if there is none
+     */
+    public static TreeSpecies byId(int id) {
+        return id >= 0 && id < BY_ID.length ? BY_ID[id] : null;
+    }
+
+    /**
+     * Finds the species a stored generator definition was created from, used to migrate older saves.
+     * @return the matching species or null if there is none
+     */
+    public static TreeSpecies fromDefinition(TreeGeneratorContainer container) {
+        for (TreeSpecies species : values()) {
+            TreeGeneratorContainer definition = species.getDefinition();
+            if (Objects.equals(definition.className, container.className)
+                    && Objects.equals(definition.barkType, container.barkType)
+                    && Objects.equals(definition.leafType, container.leafType)
+                    && Objects.equals(definition.initialAxiom, container.initialAxiom)
+                    && definition.maxDepth == container.maxDepth
+                    && definition.angle == container.angle) {
+                return species;
+            }
+        }
+        return null;
+    }
+
+    private static TreeGeneratorContainer createDefinition(TreeGenerator generator) {
+        if (generator instanceof TreeGeneratorLSystem) {
+            TreeGeneratorLSystem treeGen = (TreeGeneratorLSystem) generator;
+            RecursiveTreeGeneratorLSystem recursiveTreeGeneratorLSystem = treeGen.getRecursiveGenerator();
+            return new TreeGeneratorContainer(treeGen.getLeafType().toString(),
+                    treeGen.getBarkType().toString(), treeGen.getInitialAxiom(), TreeGeneratorLSystem.class.toString(), recursiveTreeGeneratorLSystem.getMaxDepth(),
+                    recursiveTreeGeneratorLSystem.getAngle(), recursiveTreeGeneratorLSystem.getRuleSet());
+        }
+        TreeGeneratorCactus treeGen = (TreeGeneratorCactus) generator;
+        return new TreeGeneratorContainer(treeGen.getCactusType().toString());
+    }
+}
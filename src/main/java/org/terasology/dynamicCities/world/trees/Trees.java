@@ -35,7 +35,8 @@ public final class Trees {
             .put('B', new LSystemRule("[&FFFA]////[&FFFA]////[&FFFA]", 0.8f)).build(),
             4, (float) Math.toRadians(30))
             .setLeafType(new BlockUri("core:GreenLeaf"))
-            .setBarkType(new BlockUri("core:OakTrunk"));
+            .setBarkType(new BlockUri("core:OakTrunk"))
+            .setSpecies(TreeSpecies.OAK);
     }
 
     public static TreeGenerator oakVariationTree() {
@@ -45,7 +46,8 @@ public final class Trees {
             .put('B', new LSystemRule("[&FFFAFFFF]////[&FFFAFFF]////[&FFFAFFAA]", 0.8f)).build(),
             4, (float) Math.toRadians(35))
             .setLeafType(new BlockUri("core:GreenLeaf"))
-            .setBarkType(new BlockUri("core:OakTrunk"));
+            .setBarkType(new BlockUri("core:OakTrunk"))
+            .setSpecies(TreeSpecies.OAK_VARIATION);
     }
 
     public static TreeGenerator pineTree() {
@@ -54,7 +56,8 @@ public final class Trees {
             .put('A', new LSystemRule("[&FFFFFA]////[&FFFFFA]////[&FFFFFA]", 1.0f)).build(),
             4, (float) Math.toRadians(35))
             .setLeafType(new BlockUri("core:DarkLeaf"))
-            .setBarkType(new BlockUri("core:PineTrunk"));
+            .setBarkType(new BlockUri("core:PineTrunk"))
+            .setSpecies(TreeSpecies.PINE);
     }
 
     public static TreeGenerator birchTree() {
@@ -63,7 +66,8 @@ public final class Trees {
             .put('A', new LSystemRule("[&FFFAFFF]////[&FFAFFF]////[&FFFAFFF]", 1.0f))
             .put('B', new LSystemRule("[&FAF]////[&FAF]////[&FAF]", 0.8f)).build(), 4, (float) Math.toRadians(35))
             .setLeafType(new BlockUri("core:DarkLeaf"))
-            .setBarkType(new BlockUri("core:BirchTrunk"));
+            .setBarkType(new BlockUri("core:BirchTrunk"))
+            .setSpecies(TreeSpecies.BIRCH);
     }
 
     public static TreeGenerator redTree() {
@@ -71,11 +75,14 @@ public final class Trees {
             .put('A', new LSystemRule("[&FFAFF]////[&FFAFF]////[&FFAFF]", 1.0f)).build(),
             4, (float) Math.toRadians(40))
             .setLeafType(new BlockUri("core:RedLeaf"))
-            .setBarkType(new BlockUri("core:OakTrunk"));
+            .setBarkType(new BlockUri("core:OakTrunk"))
+            .setSpecies(TreeSpecies.RED);
     }
 
     public static TreeGenerator cactus() {
-        return new TreeGeneratorCactus()
-            .setTrunkType(new BlockUri("core:Cactus"));
+        TreeGeneratorCactus cactus = new TreeGeneratorCactus();
+        cactus.setTrunkType(new BlockUri("core:Cactus"));
+        cactus.setSpecies(TreeSpecies.CACTUS);
+        return cactus;
     }
 }
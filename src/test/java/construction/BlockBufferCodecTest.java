@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package construction;
+
+import gnu.trove.map.TIntShortMap;
+import gnu.trove.map.hash.TIntShortHashMap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.terasology.dynamicCities.construction.BlockBufferCodec;
+
+public class BlockBufferCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        TIntShortMap chunk = new TIntShortHashMap();
+        chunk.put(0, (short) 5);
+        chunk.put(17, (short) 300);
+        chunk.put(65535, (short) 5);
+        chunk.put(1000, (short) -2);
+
+        //Palette index = id + 10, shifted back when decoding
+        byte[] data = BlockBufferCodec.encode(chunk, id -> id + 10);
+        TIntShortMap decoded = BlockBufferCodec.decode(data, index -> index - 10);
+        Assert.assertEquals(chunk, decoded);
+    }
+
+    @Test
+    public void testEmptyChunk() {
+        byte[] data = BlockBufferCodec.encode(new TIntShortHashMap(), id -> id);
+        Assert.assertTrue(BlockBufferCodec.decode(data, index -> index).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCorruptData() {
+        BlockBufferCodec.decode(new byte[]{1, 2, 3}, index -> index);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package construction;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.terasology.dynamicCities.construction.BlockBufferSystem;
+import org.terasology.engine.Time;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BlockBufferSystemTest {
+
+    private BlockBufferSystem blockBufferSystem;
+    private WorldProvider worldProvider;
+    private Block block;
+
+    @Before
+    public void setup() throws ReflectiveOperationException {
+        worldProvider = Mockito.mock(WorldProvider.class);
+        Time time = Mockito.mock(Time.class);
+        block = Mockito.mock(Block.class);
+        Mockito.when(block.getId()).thenReturn((short) 1);
+        BlockManager blockManager = Mockito.mock(BlockManager.class);
+        Mockito.when(blockManager.getBlock((short) 1)).thenReturn(block);
+
+        blockBufferSystem = new BlockBufferSystem();
+        inject("worldProvider", worldProvider);
+        inject("blockManager", blockManager);
+        inject("time", time);
+    }
+
+    @Test
+    public void testCallbackFiresOnceChunksDrain() {
+        //Two chunks in the region, the second one only becomes relevant later
+        blockBufferSystem.saveBlock(new Vector3i(1, 1, 1), block);
+        blockBufferSystem.saveBlock(new Vector3i(40, 1, 1), block);
+        Mockito.when(worldProvider.isBlockRelevant(Mockito.any(Vector3i.class)))
+                .thenAnswer(invocation -> ((Vector3i) invocation.getArguments()[0]).x < 32);
+        Region3i region = Region3i.createFromMinMax(new Vector3i(0, 0, 0), new Vector3i(40, 5, 5));
+        AtomicInteger fired = new AtomicInteger();
+
+        blockBufferSystem.whenRegionProcessed(region, fired::incrementAndGet);
+        Assert.assertEquals(0, fired.get());
+
+        blockBufferSystem.setBlocks();
+        Assert.assertEquals(0, fired.get());
+        Assert.assertFalse(blockBufferSystem.isRegionProcessed(region));
+
+        Mockito.when(worldProvider.isBlockRelevant(Mockito.any(Vector3i.class))).thenReturn(true);
+        blockBufferSystem.setBlocks();
+        Assert.assertEquals(1, fired.get());
+        Assert.assertTrue(blockBufferSystem.isRegionProcessed(region));
+
+        blockBufferSystem.saveBlock(new Vector3i(2, 1, 1), block);
+        blockBufferSystem.setBlocks();
+        Assert.assertEquals(1, fired.get());
+    }
+
+    @Test
+    public void testCallbackIgnoresOtherRegions() {
+        blockBufferSystem.saveBlock(new Vector3i(100, 1, 100), block);
+        AtomicInteger fired = new AtomicInteger();
+        blockBufferSystem.whenRegionProcessed(Region3i.createFromMinMax(new Vector3i(0, 0, 0), new Vector3i(5, 5, 5)),
+                fired::incrementAndGet);
+        Assert.assertEquals(1, fired.get());
+    }
+
+    private void inject(String fieldName, Object value) throws ReflectiveOperationException {
+        Field field = BlockBufferSystem.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(blockBufferSystem, value);
+    }
+}
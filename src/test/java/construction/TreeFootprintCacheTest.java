@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package construction;
+
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.terasology.dynamicCities.construction.RecursiveTreeGeneratorLSystemRemover;
+import org.terasology.dynamicCities.construction.TreeFootprintCache;
+import org.terasology.dynamicCities.rasterizer.ResourceAccumulator;
+import org.terasology.dynamicCities.world.trees.AbstractTreeGenerator;
+import org.terasology.dynamicCities.world.trees.TreeGeneratorLSystem;
+import org.terasology.dynamicCities.world.trees.TreeSpecies;
+import org.terasology.dynamicCities.world.trees.Trees;
+import org.terasology.math.Region3i;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.utilities.random.Random;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.CoreChunk;
+
+import java.util.Arrays;
+
+public class TreeFootprintCacheTest {
+
+    @Test
+    public void testFootprintMatchesGenerator() {
+        TreeFootprintCache cache = new TreeFootprintCache();
+        for (int seed = 0; seed < 3; seed++) {
+            int[] expected = generateFootprint((TreeGeneratorLSystem) Trees.oakTree(), seed);
+            Assert.assertArrayEquals(expected, cache.getFootprint(TreeSpecies.OAK, seed));
+        }
+    }
+
+    @Test
+    public void testRepeatedLookupIsCached() {
+        TreeFootprintCache cache = new TreeFootprintCache();
+        int[] footprint = cache.getFootprint(TreeSpecies.PINE, 0);
+        Assert.assertSame(footprint, cache.getFootprint(TreeSpecies.PINE, 0));
+        Assert.assertEquals(1, cache.size());
+
+        cache.getFootprint(TreeSpecies.OAK, 0);
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsDropped() {
+        TreeFootprintCache cache = new TreeFootprintCache(2);
+        int[] oak = cache.getFootprint(TreeSpecies.OAK, 0);
+        cache.getFootprint(TreeSpecies.PINE, 0);
+        cache.getFootprint(TreeSpecies.OAK, 0);
+        cache.getFootprint(TreeSpecies.BIRCH, 0);
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertSame(oak, cache.getFootprint(TreeSpecies.OAK, 0));
+    }
+
+    @Test
+    public void testCactusHasNoFootprint() {
+        TreeFootprintCache cache = new TreeFootprintCache();
+        Assert.assertNull(cache.getFootprint(TreeSpecies.CACTUS, 0));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    /**
+     * Collects every block the rasterizer places for the tree, leaves included. The rasterizer skips segments outside
+     * of the chunk, so the tree is generated once per chunk sized step over its bounds.
+     */
+    private static int[] generateFootprint(TreeGeneratorLSystem generator, int seed) {
+        TIntSet blocks = new TIntHashSet();
+        Region3i bounds = generator.getBounds();
+        for (int posX = -bounds.maxX(); posX < -bounds.minX() + ChunkConstants.SIZE_X; posX += ChunkConstants.SIZE_X) {
+            for (int posY = -bounds.maxY(); posY < -bounds.minY() + ChunkConstants.SIZE_Y; posY += ChunkConstants.SIZE_Y) {
+                for (int posZ = -bounds.maxZ(); posZ < -bounds.minZ() + ChunkConstants.SIZE_Z; posZ += ChunkConstants.SIZE_Z) {
+                    Random random = new FastRandom(seed);
+                    float angleOffset = random.nextFloat(-TreeGeneratorLSystem.MAX_ANGLE_OFFSET, TreeGeneratorLSystem.MAX_ANGLE_OFFSET);
+                    generator.getRecursiveGenerator().generate(null, random, posX, posY, posZ, angleOffset,
+                            generator.getInitialAxiom(), null, null, new BlockRecorder(blocks, posX, posY, posZ), null);
+                }
+            }
+        }
+        int[] footprint = blocks.toArray();
+        Arrays.sort(footprint);
+        return footprint;
+    }
+
+    private static class BlockRecorder extends AbstractTreeGenerator {
+
+        private final TIntSet blocks;
+        private final int posX;
+        private final int posY;
+        private final int posZ;
+
+        BlockRecorder(TIntSet blocks, int posX, int posY, int posZ) {
+            this.blocks = blocks;
+            this.posX = posX;
+            this.posY = posY;
+            this.posZ = posZ;
+        }
+
+        @Override
+        protected void safelySetBlock(CoreChunk chunk, int x, int y, int z, Block block, ResourceAccumulator resources) {
+            blocks.add(RecursiveTreeGeneratorLSystemRemover.packOffset(x - posX, y - posY, z - posZ));
+        }
+
+        @Override
+        public void generate(BlockManager blockManager, CoreChunk view, Random rand, int posX, int posY, int posZ, ResourceAccumulator resources) {
+        }
+
+        @Override
+        public Region3i getBounds() {
+            return Region3i.EMPTY;
+        }
+    }
+}
@@ -138,4 +138,16 @@ public class Grid2DFloatFacetTest{
         Assert.assertEquals(32.0f, facet.get(14, 16), 0.0);
     }
 
+    @Test
+    public void testVectorGetSet() {
+        //The vector overloads must address the same cell as the int ones
+        facet.set(14, 12, 16f);
+        Assert.assertEquals(16.0f, facet.get(new Vector2i(14, 12)), 0.0);
+        facet.set(new Vector2i(0, 5), 2f);
+        Assert.assertEquals(2.0f, facet.get(0, 5), 0.0);
+        facet.setWorld(new Vector2i(24, 46), 32f);
+        Assert.assertEquals(32.0f, facet.getWorld(24, 46), 0.0);
+        Assert.assertEquals(32.0f, facet.getWorld(new Vector2i(24, 46)), 0.0);
+    }
+
 }
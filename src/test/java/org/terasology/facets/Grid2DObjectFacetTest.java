@@ -132,5 +132,17 @@ public class Grid2DObjectFacetTest {
     }
 
 
+    @Test
+    public void testVectorGetSet() {
+        //The vector overloads must address the same cell as the int ones
+        facet.set(14, 12, 16);
+        Assert.assertEquals(Integer.valueOf(16), facet.get(new Vector2i(14, 12)));
+        facet.set(new Vector2i(0, 5), 2);
+        Assert.assertEquals(Integer.valueOf(2), facet.get(0, 5));
+        facet.setWorld(new Vector2i(24, 46), 32);
+        Assert.assertEquals(Integer.valueOf(32), facet.getWorld(24, 46));
+        Assert.assertEquals(Integer.valueOf(32), facet.getWorld(new Vector2i(24, 46)));
+    }
+
 
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package parcels;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.commonworld.Orientation;
+import org.terasology.dynamicCities.parcels.DynParcel;
+import org.terasology.dynamicCities.parcels.ParcelGrid;
+import org.terasology.math.geom.Rect2i;
+
+public class ParcelGridTest {
+
+    private ParcelGrid grid;
+    private DynParcel[] parcels;
+
+    @Before
+    public void setup() {
+        grid = new ParcelGrid();
+        parcels = new DynParcel[3];
+        parcels[0] = new DynParcel(Rect2i.createFromMinAndSize(0, 0, 10, 10), Orientation.EAST, "residential", 0);
+        parcels[1] = new DynParcel(Rect2i.createFromMinAndSize(13, 13, 10, 10), Orientation.EAST, "residential", 0);
+        parcels[2] = new DynParcel(Rect2i.createFromMinAndSize(-45, -13, 40, 10), Orientation.EAST, "clerical", 0);
+        for (DynParcel parcel : parcels) {
+            grid.add(parcel);
+        }
+    }
+
+    @Test
+    public void testOverlaps() {
+        Assert.assertFalse(grid.overlaps(Rect2i.createFromMinAndSize(-100, -100, 10, 10)));
+        Assert.assertFalse(grid.overlaps(Rect2i.createFromMinAndSize(10, 0, 3, 30)));
+        Assert.assertTrue(grid.overlaps(Rect2i.createFromMinAndSize(-5, -5, 100, 100)));
+        Assert.assertTrue(grid.overlaps(Rect2i.createFromMinAndSize(-40, -10, 2, 2)));
+        Assert.assertTrue(grid.overlaps(Rect2i.createFromMinAndSize(22, 22, 1, 1)));
+    }
+
+    @Test
+    public void testRemove() {
+        grid.remove(parcels[2]);
+        Assert.assertEquals(2, grid.size());
+        Assert.assertFalse(grid.overlaps(Rect2i.createFromMinAndSize(-40, -10, 2, 2)));
+    }
+
+    @Test
+    public void testRemoveAfterShrink() {
+        parcels[2].shape = Rect2i.createFromMinAndSize(-10, -13, 5, 5);
+        grid.remove(parcels[2]);
+        grid.add(new DynParcel(Rect2i.createFromMinAndSize(-100, -100, 10, 10), Orientation.EAST, "clerical", 0));
+        Assert.assertFalse(grid.overlaps(Rect2i.createFromMinAndSize(-45, -13, 10, 10)));
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package regions;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.terasology.dynamicCities.region.RegionIndex;
+import org.terasology.entitySystem.entity.EntityRef;
+
+public class RegionIndexTest {
+
+    @Test
+    public void testRemoveRegion() {
+        RegionIndex index = new RegionIndex(64);
+        index.putRegion(16, -16, EntityRef.NULL);
+        index.setBuildabilityAtGrid(0, -1, RegionIndex.BUILDABLE);
+        Assert.assertEquals(EntityRef.NULL, index.getRegion(31, -1));
+        Assert.assertEquals(RegionIndex.BUILDABLE, index.getBuildabilityAtGrid(0, -1));
+
+        index.removeRegion(16, -16, EntityRef.NULL);
+        Assert.assertNull(index.getRegion(16, -16));
+        Assert.assertEquals(RegionIndex.BUILDABILITY_UNKNOWN, index.getBuildabilityAtGrid(0, -1));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package regions;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.terasology.dynamicCities.facets.ResourceFacet;
+import org.terasology.dynamicCities.region.components.ResourceFacetComponent;
+import org.terasology.dynamicCities.resource.Resource;
+import org.terasology.dynamicCities.resource.ResourceType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ResourceFacetComponentTest {
+
+    @Test
+    public void testResourceSum() {
+        ResourceFacetComponent resources = new ResourceFacetComponent();
+        resources.amounts = new int[2 * ResourceFacet.TYPE_COUNT];
+        resources.amounts[ResourceType.GRASS.ordinal()] = 3;
+        resources.amounts[ResourceFacet.TYPE_COUNT + ResourceType.GRASS.ordinal()] = 4;
+        resources.amounts[ResourceFacet.TYPE_COUNT + ResourceType.WATER.ordinal()] = 1;
+        Assert.assertEquals(7, resources.getResourceSum(ResourceType.GRASS));
+        Assert.assertEquals(1, resources.getResourceSum("Water"));
+        Assert.assertEquals(0, resources.getResourceSum(ResourceType.STONE));
+        Assert.assertEquals(0, resources.getResourceSum("Unknown"));
+    }
+
+    @Test
+    public void testMigration() {
+        ResourceFacetComponent resources = new ResourceFacetComponent();
+        Map<String, Resource> cell = new HashMap<>();
+        cell.put(ResourceType.WOOD.toString(), new Resource(ResourceType.WOOD, 12));
+        cell.put(ResourceType.STONE.toString(), new Resource(ResourceType.STONE, 5));
+        resources.data.add(new HashMap<>());
+        resources.data.add(cell);
+
+        Assert.assertEquals(12, resources.getResourceSum(ResourceType.WOOD));
+        Assert.assertEquals(5, resources.getResourceSum(ResourceType.STONE));
+        Assert.assertTrue(resources.data.isEmpty());
+        Assert.assertEquals(2 * ResourceFacet.TYPE_COUNT, resources.getInternal().length);
+        Assert.assertEquals(12, resources.getInternal()[ResourceFacet.TYPE_COUNT + ResourceType.WOOD.ordinal()]);
+    }
+}
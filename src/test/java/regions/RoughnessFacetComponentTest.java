@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package regions;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.terasology.dynamicCities.region.components.RoughnessFacetComponent;
+import org.terasology.math.geom.Rect2i;
+import org.terasology.math.geom.Vector2i;
+
+public class RoughnessFacetComponentTest {
+
+    @Test
+    public void testMigration() {
+        RoughnessFacetComponent roughness = createComponent();
+        for (int i = 0; i < 81; i++) {
+            roughness.data.add(i * 0.5f);
+        }
+
+        Assert.assertEquals(0f, roughness.getWorld(0, 0), 0f);
+        Assert.assertTrue(roughness.data.isEmpty());
+        Assert.assertEquals(81, roughness.getInternal().length);
+        Assert.assertEquals(4f, roughness.getWorld(63, 0), 0f);
+        Assert.assertEquals(40f, roughness.get(63, 63), 0f);
+    }
+
+    @Test
+    public void testSetAfterMigration() {
+        RoughnessFacetComponent roughness = createComponent();
+        for (int i = 0; i < 81; i++) {
+            roughness.data.add(1f);
+        }
+
+        roughness.setWorld(40, 40, 3f);
+        Assert.assertTrue(roughness.data.isEmpty());
+        Assert.assertEquals(3f, roughness.getWorld(40, 40), 0f);
+        Assert.assertEquals(1f, roughness.getWorld(0, 0), 0f);
+    }
+
+    @Test
+    public void testNoMigration() {
+        RoughnessFacetComponent roughness = createComponent();
+        roughness.deviations = new float[81];
+        roughness.deviations[80] = 2f;
+
+        Assert.assertEquals(2f, roughness.getWorld(63, 63), 0f);
+        Assert.assertSame(roughness.deviations, roughness.getInternal());
+    }
+
+    @Test
+    public void testGetAtWorldGrid() {
+        RoughnessFacetComponent roughness = createComponent();
+        for (int i = 0; i < 81; i++) {
+            roughness.data.add((float) i);
+        }
+
+        Rect2i gridRegion = roughness.getGridWorldRegion();
+        for (int gridY = gridRegion.minY(); gridY <= gridRegion.maxY(); gridY++) {
+            for (int gridX = gridRegion.minX(); gridX <= gridRegion.maxX(); gridX++) {
+                Assert.assertEquals(roughness.getInternal()[roughness.getGridIndex().worldGridIndex(gridX, gridY)],
+                        roughness.getAtWorldGrid(gridX, gridY), 0f);
+            }
+        }
+        Assert.assertEquals(80f, roughness.getAtWorldGrid(36, 36), 0f);
+    }
+
+    @Test
+    public void testVectorGetSet() {
+        RoughnessFacetComponent roughness = createComponent();
+        roughness.deviations = new float[81];
+
+        //The vector overloads must address the same cell as the int ones
+        roughness.setWorld(new Vector2i(40, 40), 3f);
+        Assert.assertEquals(3f, roughness.getWorld(40, 40), 0f);
+        Assert.assertEquals(3f, roughness.getWorld(new Vector2i(40, 40)), 0f);
+        roughness.set(60, 8, 5f);
+        Assert.assertEquals(5f, roughness.get(new Vector2i(60, 8)), 0f);
+    }
+
+    /**
+     * A 64x64 region at the origin, with a grid size of 8 around (32, 32).
+     */
+    private static RoughnessFacetComponent createComponent() {
+        RoughnessFacetComponent roughness = new RoughnessFacetComponent();
+        roughness.worldRegion = Rect2i.createFromMinAndSize(0, 0, 64, 64);
+        roughness.relativeRegion = Rect2i.createFromMinAndSize(0, 0, 64, 64);
+        roughness.gridWorldRegion = Rect2i.createFromMinAndMax(28, 28, 36, 36);
+        roughness.gridRelativeRegion = Rect2i.createFromMinAndMax(0, 0, 8, 8);
+        roughness.gridSize = 8;
+        roughness.center = new Vector2i(32, 32);
+        return roughness;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package regions;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.dynamicCities.facets.RoughnessFacet;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector2i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.generation.Border3D;
+import org.terasology.world.generation.facets.SurfaceHeightFacet;
+
+public class RoughnessFacetTest {
+
+    private static final int SEA_LEVEL = 10;
+
+    private SurfaceHeightFacet surface;
+    private RoughnessFacet roughness;
+
+    @Before
+    public void setup() {
+        Region3i region = Region3i.createFromMinAndSize(new Vector3i(64, 0, 96), new Vector3i(32, 64, 32));
+        surface = new SurfaceHeightFacet(region, new Border3D(0, 0, 0));
+        for (int z = 96; z < 128; z++) {
+            for (int x = 64; x < 96; x++) {
+                surface.setWorld(x, z, 20 + (x * 7 + z * 3) % 5);
+            }
+        }
+        roughness = new RoughnessFacet(region, new Border3D(0, 0, 0), 4);
+    }
+
+    @Test
+    public void testCellDeviation() {
+        roughness.calcRoughness(surface, SEA_LEVEL);
+        Vector2i center = roughness.getCenter();
+        Assert.assertEquals(deviation(center.x() - 2, center.y() - 2, 4), roughness.getWorld(center.x(), center.y()), 1e-4f);
+        Assert.assertEquals(deviation(center.x() + 2, center.y() - 6, 4), roughness.getWorld(center.x() + 4, center.y() - 4), 1e-4f);
+    }
+
+    @Test
+    public void testBelowSeaLevel() {
+        Vector2i center = roughness.getCenter();
+        surface.setWorld(center.x(), center.y(), SEA_LEVEL);
+        roughness.calcRoughness(surface, SEA_LEVEL);
+        Assert.assertEquals(-1000, roughness.getWorld(center.x(), center.y()), 0);
+    }
+
+    @Test
+    public void testMeanDeviation() {
+        roughness.calcRoughness(surface, SEA_LEVEL);
+        float expected = 0;
+        for (int z = 96; z < 128; z++) {
+            for (int x = 64; x < 96; x++) {
+                expected += roughness.getWorld(x, z);
+            }
+        }
+        expected /= roughness.getGridRelativeRegion().area();
+        Assert.assertEquals(expected, roughness.getMeanDeviation(), 1e-3f);
+    }
+
+    @Test
+    public void testMeanDeviationAfterSet() {
+        roughness.calcRoughness(surface, SEA_LEVEL);
+        float before = roughness.getMeanDeviation();
+        Vector2i center = roughness.getCenter();
+        roughness.setWorld(center.x(), center.y(), roughness.getWorld(center.x(), center.y()) + 100);
+        Assert.assertTrue(roughness.getMeanDeviation() > before);
+
+        float[] flat = new float[roughness.getInternal().length];
+        roughness.set(flat);
+        Assert.assertEquals(0, roughness.getMeanDeviation(), 0);
+    }
+
+    @Test
+    public void testForEachCell() {
+        roughness.calcRoughness(surface, SEA_LEVEL);
+        int[] visited = new int[1];
+        roughness.forEachCell((gridX, gridY, value) -> {
+            int index = roughness.getRowStart(gridY) + gridX - roughness.getGridWorldRegion().minX();
+            Assert.assertEquals(index, visited[0]++);
+            Assert.assertTrue(gridX - roughness.getGridWorldRegion().minX() < roughness.getRowLength());
+            Assert.assertEquals(gridX, roughness.getCellGridX(index));
+            Assert.assertEquals(gridY, roughness.getCellGridY(index));
+            Assert.assertEquals(roughness.getInternal()[index], value, 0);
+            Vector2i worldPoint = new Vector2i(roughness.getGridIndex().toWorldX(gridX), roughness.getGridIndex().toWorldY(gridY));
+            if (roughness.getWorldRegion().contains(worldPoint)) {
+                Assert.assertEquals(roughness.getWorld(worldPoint), value, 0);
+            }
+        });
+        Assert.assertEquals(roughness.getInternal().length, visited[0]);
+    }
+
+    private float deviation(int minX, int minZ, int size) {
+        float mean = 0;
+        for (int z = minZ; z < minZ + size; z++) {
+            for (int x = minX; x < minX + size; x++) {
+                mean += surface.getWorld(x, z);
+            }
+        }
+        mean /= size * size;
+        float variance = 0;
+        for (int z = minZ; z < minZ + size; z++) {
+            for (int x = minX; x < minX + size; x++) {
+                variance += (surface.getWorld(x, z) - mean) * (surface.getWorld(x, z) - mean);
+            }
+        }
+        return (float) Math.sqrt(variance / (size * size));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package regions;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.dynamicCities.region.components.TreeFacetComponent;
+import org.terasology.dynamicCities.region.components.TreeGeneratorContainer;
+import org.terasology.dynamicCities.world.trees.TreeSpecies;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Rect2i;
+import org.terasology.math.geom.Vector3i;
+
+public class TreeFacetComponentTest {
+
+    private TreeFacetComponent trees;
+
+    @Before
+    public void setup() {
+        trees = new TreeFacetComponent();
+        trees.worldRegion = Region3i.createFromMinAndSize(new Vector3i(100, 0, 200), new Vector3i(32, 64, 32));
+        trees.relativeRegion = Region3i.createFromMinAndSize(new Vector3i(-5, -5, -5), new Vector3i(42, 74, 42));
+        trees.setWorld(110, 5, 210, TreeSpecies.OAK, 1);
+        trees.setWorld(101, 5, 230, TreeSpecies.PINE, 2);
+        trees.setWorld(120, 5, 205, TreeSpecies.BIRCH, 3);
+        trees.setWorld(110, 5, 202, TreeSpecies.CACTUS, 4);
+    }
+
+    @Test
+    public void testAreaQuery() {
+        int[] found = trees.getTreesInArea(Rect2i.createFromMinAndMax(105, 200, 125, 211));
+        Assert.assertEquals(3, found.length);
+        Assert.assertEquals(TreeSpecies.CACTUS, trees.getSpecies(found[0]));
+        Assert.assertEquals(4, trees.getSeed(found[0]));
+        Assert.assertEquals(110, trees.getWorldX(found[0]));
+        Assert.assertEquals(202, trees.getWorldZ(found[0]));
+        Assert.assertEquals(0, trees.getTreesInArea(Rect2i.createFromMinAndMax(0, 0, 50, 50)).length);
+    }
+
+    @Test
+    public void testRemoveTrees() {
+        trees.removeTrees(trees.getTreesInArea(Rect2i.createFromMinAndMax(110, 200, 110, 220)));
+        Assert.assertEquals(2, trees.size());
+        Assert.assertNull(trees.getWorld(110, 5, 210));
+        Assert.assertEquals(TreeSpecies.PINE, trees.getWorld(101, 5, 230));
+    }
+
+    @Test
+    public void testMigration() {
+        TreeFacetComponent saved = new TreeFacetComponent();
+        saved.worldRegion = trees.worldRegion;
+        saved.relativeRegion = trees.relativeRegion;
+        saved.relData.put("(10, 0, 4)", new TreeGeneratorContainer("core:Cactus"));
+        saved.relData.put("(-2, 0, 4)", new TreeGeneratorContainer("core:Cactus"));
+        saved.relData.put("(0, 0, 0)", new TreeGeneratorContainer("unknown:Cactus"));
+        Assert.assertEquals(2, saved.size());
+        Assert.assertTrue(saved.relData.isEmpty());
+        Assert.assertEquals(TreeSpecies.CACTUS, saved.get(10, 0, 4));
+        Assert.assertEquals(0, saved.getSeed(0));
+        Assert.assertEquals(1, saved.getTreesInArea(Rect2i.createFromMinAndMax(100, 205, 105, 210)).length);
+    }
+
+    @Test
+    public void testMigrationSortsTrees() {
+        TreeFacetComponent saved = new TreeFacetComponent();
+        saved.worldRegion = trees.worldRegion;
+        saved.relativeRegion = trees.relativeRegion;
+        saved.relData.put("(10, 3, 4)", new TreeGeneratorContainer("core:Cactus"));
+        saved.relData.put("(10, 1, 4)", new TreeGeneratorContainer("core:Cactus"));
+        saved.relData.put("(-2, 0, 9)", new TreeGeneratorContainer("core:Cactus"));
+        saved.relData.put("(10, 0, 2)", new TreeGeneratorContainer("core:Cactus"));
+        saved.relData.put("(-2, 0, 1)", new TreeGeneratorContainer("core:Cactus"));
+        Assert.assertEquals(5, saved.size());
+        int[][] expected = {{-2, 0, 1}, {-2, 0, 9}, {10, 0, 2}, {10, 1, 4}, {10, 3, 4}};
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i][0] + 105, saved.getWorldX(i));
+            Assert.assertEquals(expected[i][1] + 5, saved.getWorldY(i));
+            Assert.assertEquals(expected[i][2] + 205, saved.getWorldZ(i));
+        }
+        saved.set(0, 0, 0, TreeSpecies.CACTUS, 7);
+        Assert.assertEquals(6, saved.size());
+        Assert.assertEquals(7, saved.getSeed(2));
+    }
+}
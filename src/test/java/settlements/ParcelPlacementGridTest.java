@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package settlements;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.dynamicCities.districts.DistrictType;
+import org.terasology.dynamicCities.settlements.ParcelPlacementGrid;
+import org.terasology.dynamicCities.settlements.SettlementSnapshot;
+import org.terasology.dynamicCities.settlements.components.DistrictFacetComponent;
+import org.terasology.math.geom.Rect2i;
+import org.terasology.math.geom.Vector2i;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+
+public class ParcelPlacementGridTest {
+
+    private ParcelPlacementGrid grid;
+
+    @Before
+    public void setup() {
+        grid = new ParcelPlacementGrid(new SettlementSnapshot(createDistrictFacet(), Collections.emptyList()));
+    }
+
+    @Test
+    public void testIsFree() {
+        Assert.assertTrue(grid.isFree(Rect2i.createFromMinAndSize(0, 0, 64, 64)));
+        grid.markOccupied(Rect2i.createFromMinAndSize(10, 10, 5, 5));
+        Assert.assertTrue(grid.isFree(Rect2i.createFromMinAndSize(0, 0, 8, 8)));
+        Assert.assertTrue(grid.isFree(Rect2i.createFromMinAndSize(16, 0, 48, 64)));
+        Assert.assertFalse(grid.isFree(Rect2i.createFromMinAndSize(15, 15, 1, 1)));
+        Assert.assertFalse(grid.isFree(Rect2i.createFromMinAndSize(0, 0, 64, 64)));
+    }
+
+    @Test
+    public void testOutsideIsNotFree() {
+        Assert.assertFalse(grid.isFree(Rect2i.createFromMinAndSize(-1, 0, 8, 8)));
+        Assert.assertFalse(grid.isFree(Rect2i.createFromMinAndSize(60, 60, 8, 8)));
+    }
+
+    @Test
+    public void testCollectCandidates() {
+        int[] candidates = new int[grid.getCellCount()];
+        //Only the four western cell columns lie in the residential district
+        Assert.assertEquals(32, grid.collectCandidates("residential", 0, 0, 1000, candidates));
+        grid.markOccupied(Rect2i.createFromMinAndSize(10, 10, 5, 5));
+        int count = grid.collectCandidates("residential", 0, 0, 1000, candidates);
+        Assert.assertEquals(31, count);
+        for (int i = 0; i < count; i++) {
+            Assert.assertTrue(grid.getCellWorldX(candidates[i]) < 32);
+            Assert.assertFalse(grid.getCellWorldX(candidates[i]) == 8 && grid.getCellWorldY(candidates[i]) == 8);
+        }
+        Assert.assertEquals(32, grid.collectCandidates("commercial", 0, 0, 1000, candidates));
+        Assert.assertEquals(1, grid.collectCandidates("residential", 0, 0, 0, candidates));
+    }
+
+    /**
+     * 64x64 blocks at the origin with 8 block cells, split into a residential west and a commercial east half.
+     */
+    static DistrictFacetComponent createDistrictFacet() {
+        DistrictFacetComponent districtFacet = new DistrictFacetComponent();
+        districtFacet.gridSize = 8;
+        districtFacet.worldRegion = Rect2i.createFromMinAndSize(0, 0, 64, 64);
+        districtFacet.relativeRegion = Rect2i.createFromMinAndSize(0, 0, 64, 64);
+        districtFacet.center = new Vector2i(32, 32);
+        districtFacet.gridWorldRegion = Rect2i.createFromMinAndMax(28, 28, 36, 36);
+        districtFacet.gridRelativeRegion = Rect2i.createFromMinAndMax(0, 0, 8, 8);
+        districtFacet.districtMap = new ArrayList<>();
+        for (int gridY = 28; gridY <= 36; gridY++) {
+            for (int gridX = 28; gridX <= 36; gridX++) {
+                districtFacet.districtMap.add(gridX < 32 ? 0 : 1);
+            }
+        }
+        districtFacet.districtCount = 2;
+        districtFacet.districtTypeMap = new HashMap<>();
+        districtFacet.districtTypeMap.put("0", createDistrictType("residential"));
+        districtFacet.districtTypeMap.put("1", createDistrictType("commercial"));
+        return districtFacet;
+    }
+
+    private static DistrictType createDistrictType(String zone) {
+        DistrictType districtType = new DistrictType();
+        districtType.name = zone;
+        districtType.zones = Arrays.asList(zone);
+        return districtType;
+    }
+}
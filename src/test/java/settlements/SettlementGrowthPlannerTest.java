@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package settlements;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.commonworld.Orientation;
+import org.terasology.dynamicCities.buildings.BuildingQueue;
+import org.terasology.dynamicCities.parcels.DynParcel;
+import org.terasology.dynamicCities.parcels.ParcelList;
+import org.terasology.dynamicCities.region.BuildabilitySnapshot;
+import org.terasology.dynamicCities.region.RegionIndex;
+import org.terasology.dynamicCities.settlements.ParcelPlacementGrid;
+import org.terasology.dynamicCities.settlements.SettlementConstants;
+import org.terasology.dynamicCities.settlements.SettlementGrowthPlan;
+import org.terasology.dynamicCities.settlements.SettlementGrowthPlanner;
+import org.terasology.dynamicCities.settlements.SettlementSnapshot;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.geom.Rect2i;
+import org.terasology.math.geom.Vector2i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.utilities.random.FastRandom;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SettlementGrowthPlannerTest {
+
+    private static final Vector3i CENTER = new Vector3i(32, 10, 32);
+
+    private DynParcel existingParcel;
+    private SettlementSnapshot snapshot;
+    private ParcelPlacementGrid placementGrid;
+    private BuildabilitySnapshot buildability;
+    private Map<String, List<Vector2i>> minMaxSizes;
+
+    @Before
+    public void setup() {
+        existingParcel = new DynParcel(Rect2i.createFromMinAndSize(0, 0, 8, 64), Orientation.NORTH, "residential", 10);
+        snapshot = new SettlementSnapshot(ParcelPlacementGridTest.createDistrictFacet(), Collections.singletonList(existingParcel));
+        placementGrid = new ParcelPlacementGrid(snapshot);
+        placementGrid.markOccupied(snapshot.getOccupiedShapes());
+        buildability = new BuildabilitySnapshot(0, 0, 2, 2);
+        for (int z = 0; z < 2; z++) {
+            for (int x = 0; x < 2; x++) {
+                buildability.set(x, z, RegionIndex.BUILDABLE);
+            }
+        }
+        minMaxSizes = new HashMap<>();
+        minMaxSizes.put("residential", Arrays.asList(new Vector2i(4, 4), new Vector2i(6, 6)));
+        minMaxSizes.put("industrial", Arrays.asList(new Vector2i(4, 4), new Vector2i(6, 6)));
+    }
+
+    @Test
+    public void testPlanPlacesFreeParcelsInZone() {
+        SettlementGrowthPlan plan = plan("residential", 200);
+
+        List<DynParcel> parcels = plan.getParcels();
+        Assert.assertEquals(SettlementConstants.MAX_BUILDINGSPAWN, parcels.size());
+        for (DynParcel parcel : parcels) {
+            Rect2i shape = parcel.getShape();
+            Assert.assertEquals("residential", parcel.getZone());
+            Assert.assertEquals(CENTER.y(), parcel.getHeight());
+            //Residential cells are the western half, minus the column taken by the existing parcel
+            Assert.assertTrue(shape.minX() >= 8 && shape.minX() < 32);
+            Assert.assertFalse(shape.overlaps(existingParcel.getShape()));
+            Assert.assertFalse(placementGrid.isFree(shape));
+        }
+        Assert.assertFalse(parcels.get(0).getShape().overlaps(parcels.get(1).getShape()));
+        Assert.assertEquals(200, plan.getCityRadius(), 0);
+    }
+
+    @Test
+    public void testPlanGrowsRadiusWithoutValidCells() {
+        SettlementGrowthPlan plan = plan("industrial", 100);
+        Assert.assertTrue(plan.getParcels().isEmpty());
+        Assert.assertEquals(100 + SettlementConstants.BUILD_RADIUS_INTERVALL, plan.getCityRadius(), 0);
+    }
+
+    @Test
+    public void testSnapshotIgnoresLaterShapeChanges() {
+        Rect2i shape = existingParcel.getShape();
+        existingParcel.shape = Rect2i.createFromMinAndSize(2, 2, 2, 2);
+        Assert.assertEquals(Collections.singletonList(shape), snapshot.getOccupiedShapes());
+    }
+
+    @Test
+    public void testCommit() {
+        SettlementGrowthPlan plan = plan("residential", 100);
+        ParcelList parcelList = new ParcelList(1);
+        parcelList.cityRadius = 120;
+        BuildingQueue buildingQueue = new BuildingQueue();
+
+        Assert.assertFalse(plan.applyTo(parcelList, buildingQueue));
+        Assert.assertEquals(plan.getParcels().size(), buildingQueue.buildingQueue.size());
+        Assert.assertTrue(buildingQueue.buildingQueue.containsAll(plan.getParcels()));
+        Assert.assertEquals(plan.getBuiltUpRadius(), parcelList.builtUpRadius, 0);
+        Assert.assertEquals(120, parcelList.cityRadius, 0);
+
+        SettlementGrowthPlan grownPlan = plan("industrial", 100);
+        Assert.assertTrue(grownPlan.applyTo(parcelList, buildingQueue));
+        Assert.assertEquals(grownPlan.getCityRadius(), parcelList.cityRadius, 0);
+    }
+
+    private SettlementGrowthPlan plan(String zone, float cityRadius) {
+        return new SettlementGrowthPlanner(EntityRef.NULL, CENTER, Collections.singletonList(zone), minMaxSizes,
+                cityRadius, 0, snapshot, placementGrid, buildability, new FastRandom(1234), 500).call();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package settlements;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.terasology.dynamicCities.settlements.SettlementIndex;
+import org.terasology.math.geom.Vector2i;
+
+public class SettlementIndexTest {
+
+    @Test
+    public void testHasSettlementWithin() {
+        SettlementIndex index = new SettlementIndex(1000);
+        index.add(new Vector2i(0, 0));
+        index.add(new Vector2i(-2500, 4000));
+
+        Assert.assertTrue(index.hasSettlementWithin(new Vector2i(999, 0), 1000));
+        Assert.assertFalse(index.hasSettlementWithin(new Vector2i(1000, 0), 1000));
+        Assert.assertTrue(index.hasSettlementWithin(new Vector2i(-2000, 3500), 1000));
+        Assert.assertFalse(index.hasSettlementWithin(new Vector2i(-2000, 3500), 500));
+        Assert.assertTrue(index.hasSettlementWithin(new Vector2i(1200, 1200), 2000));
+        Assert.assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testAddSamePosition() {
+        SettlementIndex index = new SettlementIndex(1000);
+        Assert.assertTrue(index.add(new Vector2i(10, 20)));
+        Assert.assertFalse(index.add(new Vector2i(10, 20)));
+        Assert.assertTrue(index.add(new Vector2i(20, 10)));
+        Assert.assertEquals(2, index.size());
+    }
+}
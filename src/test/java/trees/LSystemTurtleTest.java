@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package trees;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.terasology.dynamicCities.world.trees.LSystemTurtle;
+import org.terasology.math.LSystemRule;
+import org.terasology.math.TeraMath;
+import org.terasology.math.geom.Matrix4f;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.utilities.collection.CharSequenceIterator;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.utilities.random.Random;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class LSystemTurtleTest {
+
+    private static final String AXIOM = "FFFA";
+    private static final Map<Character, LSystemRule> RULES = ImmutableMap.<Character, LSystemRule>builder()
+            .put('A', new LSystemRule("[&FFBA]////[^FA]//[+FFB]", 0.9f))
+            .put('B', new LSystemRule("[-F*FA]&FB", 0.6f)).build();
+    private static final int MAX_DEPTH = 4;
+    private static final float ANGLE = (float) Math.toRadians(30);
+
+    @Test
+    public void testSameWalkAsRecursion() {
+        LSystemTurtle turtle = new LSystemTurtle(MAX_DEPTH, ANGLE, RULES);
+        //The turtle is reused on purpose, so its rotations are recomputed for every angle offset
+        for (int seed = 0; seed < 20; seed++) {
+            Random turtleRandom = new FastRandom(seed);
+            Random recursiveRandom = new FastRandom(seed);
+            float angleOffset = turtleRandom.nextFloat(-0.1f, 0.1f);
+            recursiveRandom.nextFloat(-0.1f, 0.1f);
+
+            List<String> expected = new ArrayList<>();
+            Matrix4f rotation = new Matrix4f(new Quat4f(new Vector3f(0f, 0f, 1f), (float) Math.PI / 2f), Vector3f.ZERO, 1.0f);
+            recurse(recursiveRandom, angleOffset, new CharSequenceIterator(AXIOM), new Vector3f(), rotation, 0, expected);
+
+            List<String> actual = new ArrayList<>();
+            turtle.walk(turtleRandom, angleOffset, AXIOM, (x, y, z, leaves) -> actual.add(segment(x, y, z, leaves)));
+
+            Assert.assertEquals(expected, actual);
+            Assert.assertEquals(recursiveRandom.nextInt(), turtleRandom.nextInt());
+        }
+    }
+
+    @Test
+    public void testRepeatedWalk() {
+        LSystemTurtle turtle = new LSystemTurtle(MAX_DEPTH, ANGLE, RULES);
+        List<String> first = new ArrayList<>();
+        turtle.walk(new FastRandom(3), 0.05f, AXIOM, (x, y, z, leaves) -> first.add(segment(x, y, z, leaves)));
+        turtle.walk(new FastRandom(4), -0.05f, AXIOM, (x, y, z, leaves) -> { });
+        List<String> second = new ArrayList<>();
+        turtle.walk(new FastRandom(3), 0.05f, AXIOM, (x, y, z, leaves) -> second.add(segment(x, y, z, leaves)));
+        Assert.assertEquals(first, second);
+    }
+
+    private static String segment(int x, int y, int z, boolean leaves) {
+        return x + "," + y + "," + z + (leaves ? ",leaves" : "");
+    }
+
+    /**
+     * The recursive walk the turtle replaced, recording the segments instead of setting blocks.
+     */
+    private static void recurse(Random rand, float angleOffset, CharSequenceIterator axiomIterator, Vector3f position,
+                                Matrix4f rotation, int depth, List<String> segments) {
+        while (axiomIterator.hasNext()) {
+            char c = axiomIterator.nextChar();
+            switch (c) {
+                case 'G':
+                case 'F':
+                    segments.add(segment((int) position.x, (int) position.y, (int) position.z, depth > 1));
+                    Vector3f dir = new Vector3f(1f, 0f, 0f);
+                    rotation.transformVector(dir);
+                    position.add(dir);
+                    break;
+                case '[':
+                    recurse(rand, angleOffset, axiomIterator, new Vector3f(position), new Matrix4f(rotation), depth, segments);
+                    break;
+                case ']':
+                    return;
+                case '+':
+                    rotation.mul(new Matrix4f(new Quat4f(new Vector3f(0f, 0f, 1f), ANGLE + angleOffset), Vector3f.ZERO, 1.0f));
+                    break;
+                case '-':
+                    rotation.mul(new Matrix4f(new Quat4f(new Vector3f(0f, 0f, -1f), ANGLE + angleOffset), Vector3f.ZERO, 1.0f));
+                    break;
+                case '&':
+                    rotation.mul(new Matrix4f(new Quat4f(new Vector3f(0f, 1f, 0f), ANGLE + angleOffset), Vector3f.ZERO, 1.0f));
+                    break;
+                case '^':
+                    rotation.mul(new Matrix4f(new Quat4f(new Vector3f(0f, -1f, 0f), ANGLE + angleOffset), Vector3f.ZERO, 1.0f));
+                    break;
+                case '*':
+                    rotation.mul(new Matrix4f(new Quat4f(new Vector3f(1f, 0f, 0f), ANGLE), Vector3f.ZERO, 1.0f));
+                    break;
+                case '/':
+                    rotation.mul(new Matrix4f(new Quat4f(new Vector3f(-1f, 0f, 0f), ANGLE), Vector3f.ZERO, 1.0f));
+                    break;
+                default:
+                    if (depth == MAX_DEPTH - 1) {
+                        break;
+                    }
+                    LSystemRule rule = RULES.get(c);
+                    if (rule == null) {
+                        break;
+                    }
+                    float weightedFailureProbability = TeraMath.pow(1f - rule.getProbability(), MAX_DEPTH - depth);
+                    if (rand.nextFloat() < weightedFailureProbability) {
+                        break;
+                    }
+                    recurse(rand, angleOffset, new CharSequenceIterator(rule.getAxiom()), position, rotation, depth + 1, segments);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package utilities;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.terasology.dynamicCities.utilities.CoordinateKeys;
+import org.terasology.math.geom.Vector2i;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+
+public class CoordinateKeysTest {
+
+    @Test
+    public void testRoundTrip() {
+        Vector2i pos2i = new Vector2i(-12, 345);
+        Assert.assertEquals(pos2i.toString(), CoordinateKeys.toKey(-12, 345));
+        Assert.assertEquals(pos2i, CoordinateKeys.parseVector2i(pos2i.toString()));
+
+        Vector3i pos3i = new Vector3i(Integer.MIN_VALUE, 0, Integer.MAX_VALUE);
+        Assert.assertEquals(pos3i.toString(), CoordinateKeys.toKey(pos3i.x, pos3i.y, pos3i.z));
+        Assert.assertEquals(pos3i, CoordinateKeys.parseVector3i(pos3i.toString()));
+
+        Vector3f pos3f = new Vector3f(1.5f, -2, 3.25f);
+        Assert.assertEquals(pos3f, CoordinateKeys.parseVector3f(pos3f.toString()));
+    }
+
+    @Test
+    public void testPacking() {
+        long key = CoordinateKeys.pack(-7, Integer.MIN_VALUE);
+        Assert.assertEquals(-7, CoordinateKeys.unpackX(key));
+        Assert.assertEquals(Integer.MIN_VALUE, CoordinateKeys.unpackY(key));
+        Assert.assertEquals(key, CoordinateKeys.parse2i("(-7,-2147483648)"));
+    }
+
+    @Test
+    public void testMalformedKeys() {
+        String[] keys = {"", "(1, 2", "(1 2)", "(1, 2, 3)", "(2147483648, 1)", "(-, 1)", "(1, 2) x"};
+        for (String key : keys) {
+            try {
+                CoordinateKeys.parse2i(key);
+                Assert.fail("Parsed malformed key " + key);
+            } catch (IllegalArgumentException e) {
+                //expected
+            }
+        }
+    }
+}